@@ -0,0 +1,142 @@
+package tech.ouss.backend.components;
+
+import ch.qos.logback.classic.Level;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import tech.ouss.backend.Enums.AcceptanceStatus;
+import tech.ouss.backend.Repository.userRepository;
+import tech.ouss.backend.models.role;
+import tech.ouss.backend.models.userEntity;
+
+import javax.crypto.SecretKey;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of AuthTokenFilter for a current token, whose principal is built from its claims:
+ * "cold" verifies the signature of a token never seen before (a cache of one entry, TOKENS tokens in turn),
+ * "hit" finds the claims of an already verified token in the cache.
+ * "baseline" reproduces the former path for comparison: the signing key built on every call, one parse to
+ * validate the token, another to read its subject, then loadUserByUsername. The users are looked up in a map,
+ * so the database query the former path made is not counted: the baseline is a lower bound.
+ * Run with: mvn -Pjmh test-compile exec:exec -Djmh.args=AuthTokenFilterBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AuthTokenFilterBenchmark {
+
+    private static final int TOKENS = 1024;
+    private static final String SECRET =
+            "p3v1xpXnLGREZxMc2NJoVW00uKS+IeT5eLSZsBnM8FFxeXT9D3imwVXo3ihWukwbYIivQOXMXoiHwLiHggP1Zg==";
+
+    @Param({"baseline", "cold", "hit"})
+    private String path;
+
+    private AuthTokenFilter filter;
+    private final Map<String, userEntity> users = new HashMap<>();
+    private MockHttpServletRequest[] requests;
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+    private final FilterChain chain = (request, response) -> { };
+    private int next;
+
+    @Setup
+    public void setUp() {
+        // The filter logs every request at debug level, the default of logback when left unconfigured
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 3_600_000);
+        ReflectionTestUtils.setField(jwtUtils, "jwtCacheSize", "cold".equals(path) ? 1 : TOKENS);
+        jwtUtils.init();
+
+        // No repository: every version is registered below and never expires
+        TokenVersionRegistry tokenVersionRegistry =
+                new TokenVersionRegistry(new StaticListableBeanFactory().getBeanProvider(userRepository.class));
+        ReflectionTestUtils.setField(tokenVersionRegistry, "ttlMs", Long.MAX_VALUE);
+        filter = new AuthTokenFilter(jwtUtils, username -> {
+            throw new UsernameNotFoundException("The claims of a current token are trusted: " + username);
+        }, tokenVersionRegistry);
+
+        role candidate = new role();
+        candidate.setRole_name("CANDIDATE");
+        requests = new MockHttpServletRequest[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            userEntity user = new userEntity();
+            user.setUserId((long) i);
+            user.setEmail("user" + i + "@example.com");
+            user.setRole(candidate);
+            user.setIs_accepted(AcceptanceStatus.ACCEPTED);
+            tokenVersionRegistry.update(i, user.getTokenVersion());
+            users.put(user.getEmail(), user);
+            requests[i] = new MockHttpServletRequest("GET", "/offers");
+            requests[i].addHeader("Authorization", "Bearer " + jwtUtils.generateJwtToken(user));
+        }
+        if ("hit".equals(path)) {
+            for (MockHttpServletRequest request : requests) {
+                jwtUtils.getVerifiedClaims(request.getHeader("Authorization").substring(7));
+            }
+        }
+    }
+
+    @Benchmark
+    public Authentication doFilter() throws Exception {
+        MockHttpServletRequest request = requests[next];
+        next = (next + 1) % TOKENS;
+        if ("baseline".equals(path)) {
+            authenticateAsBefore(request);
+        } else {
+            filter.doFilterInternal(request, response, chain);
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+
+    // The request path of AuthTokenFilter and JwtUtils before the claims were trusted and the parser shared
+    private void authenticateAsBefore(MockHttpServletRequest request) {
+        String jwt = request.getHeader("Authorization").substring(7);
+        Jwts.parser().verifyWith(key()).build().parseSignedClaims(jwt); // validateJwtToken
+        String username = Jwts.parser().verifyWith(key()).build()
+                .parseSignedClaims(jwt).getPayload().getSubject(); // getUserNameFromJwtToken
+        UserDetails userDetails = users.get(username); // loadUserByUsername
+        UsernamePasswordAuthenticationToken authentication =
+                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+
+    private static SecretKey key() {
+        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+    }
+}
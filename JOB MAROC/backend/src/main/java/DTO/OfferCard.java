@@ -0,0 +1,44 @@
+package DTO;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import tech.ouss.backend.Enums.Modality;
+
+import java.time.LocalDate;
+
+/**
+ * Read model of an offer as shown in list views: only the card columns and the start of the description.
+ * Built directly by JPQL constructor expressions (see offerRepository), so no entity is hydrated or dirty-checked.
+ */
+@Data
+@NoArgsConstructor
+public class OfferCard {
+    public static final int SNIPPET_LENGTH = 200;
+
+    private int offerId;
+    private String title;
+    private String companyName;
+    private String location;
+    private Modality modality;
+    private LocalDate datePublication;
+    private String snippet;
+
+    /**
+     * @param description the first SNIPPET_LENGTH + 1 characters of the description (the extra one tells
+     *                    whether it was cut), or null.
+     */
+    public OfferCard(int offerId, String title, String companyName, String location, Modality modality,
+                     LocalDate datePublication, String description) {
+        this.offerId = offerId;
+        this.title = title;
+        this.companyName = companyName;
+        this.location = location;
+        this.modality = modality;
+        this.datePublication = datePublication;
+        if (description != null && description.length() > SNIPPET_LENGTH) {
+            this.snippet = description.substring(0, SNIPPET_LENGTH).stripTrailing() + "…";
+        } else {
+            this.snippet = description;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Result of a full-text offer search: the best matches, most relevant first,
+ * and the total number of offers matching at least one query term.
+ */
+@Data
+@AllArgsConstructor
+public class OfferSearchResponse<T> {
+    private String query;
+    private int total;
+    private long tookMs;
+    private List<T> offers;
+}
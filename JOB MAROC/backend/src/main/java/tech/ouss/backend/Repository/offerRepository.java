@@ -1,16 +1,175 @@
 package tech.ouss.backend.Repository;
 
+import DTO.OfferCard;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import tech.ouss.backend.models.offer;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface offerRepository extends JpaRepository<offer, Integer> {
+    int OFFER_STREAM_FETCH_SIZE = 500;
+
+    // List endpoints use the "offer.list" fetch plan (see offer): a page loads in a fixed number of queries
+    @EntityGraph("offer.list")
     List<offer> findByCompanyName(String companyName);
 
+    @EntityGraph("offer.list")
+    @Query("SELECT o FROM offer o")
+    List<offer> findAllForList();
+
+    @EntityGraph("offer.list")
+    @Query("SELECT o FROM offer o WHERE o.offer_id IN :ids")
+    List<offer> findAllForListByIds(@Param("ids") Collection<Integer> ids);
+
+    @EntityGraph("offer.detail")
+    @Query("SELECT o FROM offer o WHERE o.offer_id = :id")
+    Optional<offer> findDetailedById(@Param("id") int id);
+
     @Query("SELECT o FROM offer o JOIN FETCH o.managerId m JOIN FETCH m.user u WHERE u.email = :email")
     List<offer> findByManagerEmail(String email);
+
+    // Card projections for list views: only the card columns and the first OfferCard.SNIPPET_LENGTH + 1
+    // characters of the description are read, straight into DTOs
+    String OFFER_CARD = "new DTO.OfferCard(o.offer_id, o.title, o.companyName, o.location, o.modality, " +
+            "o.datePublication, SUBSTRING(o.description, 1, " + (OfferCard.SNIPPET_LENGTH + 1) + "))";
+
+    @Query("SELECT " + OFFER_CARD + " FROM offer o ORDER BY o.datePublication DESC, o.offer_id DESC")
+    List<OfferCard> findAllCards();
+
+    @Query("SELECT " + OFFER_CARD + " FROM offer o JOIN o.managerId m JOIN m.user u WHERE u.email = :email " +
+            "ORDER BY o.datePublication DESC, o.offer_id DESC")
+    List<OfferCard> findCardsByManagerEmail(@Param("email") String email);
+
+    // Aggregates for StatisticsService in "sql" mode: counted by the database, only the counts come back.
+    // Note that GROUP BY follows the column collation (case- and trailing-space-insensitive by default on MySQL).
+    @Query("SELECT o.sectorActivity, COUNT(o) FROM offer o " +
+            "WHERE o.sectorActivity IS NOT NULL AND TRIM(o.sectorActivity) <> '' " +
+            "GROUP BY o.sectorActivity ORDER BY COUNT(o) DESC")
+    List<Object[]> countBySector(Pageable pageable);
+
+    @Query("SELECT o.modality, COUNT(o) FROM offer o GROUP BY o.modality")
+    List<Object[]> countByModality();
+
+    @Query("SELECT o.companyName, COUNT(o) FROM offer o " +
+            "WHERE o.companyName IS NOT NULL AND TRIM(o.companyName) <> '' " +
+            "GROUP BY o.companyName ORDER BY COUNT(o) DESC")
+    List<Object[]> countByCompany(Pageable pageable);
+
+    @Query("SELECT o.title, COUNT(o) FROM offer o " +
+            "WHERE o.title IS NOT NULL AND TRIM(o.title) <> '' " +
+            "GROUP BY o.title ORDER BY COUNT(o) DESC")
+    List<Object[]> countByTitle(Pageable pageable);
+
+    // Offers per distinct location, for the region chart: a location is normalised once in Java, however many
+    // offers share it (region_id only holds the primary region, the chart counts every region a location names)
+    @Query("SELECT o.location, COUNT(o) FROM offer o GROUP BY o.location")
+    List<Object[]> countByLocation();
+
+    // Offers per study_level_mask, for the study level chart. Rows whose derived columns are not computed yet
+    // (region_id null, see OfferDerivedColumnsBackfill) are left out and read raw by the WithoutDerivedColumns queries.
+    @Query("SELECT o.studyLevelMask, COUNT(o) FROM offer o WHERE o.regionId IS NOT NULL GROUP BY o.studyLevelMask")
+    List<Object[]> countByStudyLevelMask();
+
+    @Query("SELECT o.StudyLevel FROM offer o WHERE o.regionId IS NULL")
+    List<String> findStudyLevelsWithoutDerivedColumns();
+
+    @Query("SELECT o.skills FROM offer o WHERE o.skills IS NOT NULL")
+    List<String> findAllSkills();
+
+    // Offers per combination of the columns of the four dashboard charts, read in one pass (see
+    // StatisticsService.getDashboard); same split as countByStudyLevelMask for the rows not computed yet
+    @Query("SELECT o.sectorActivity, o.modality, o.studyLevelMask, o.location, COUNT(o) FROM offer o " +
+            "WHERE o.regionId IS NOT NULL GROUP BY o.sectorActivity, o.modality, o.studyLevelMask, o.location")
+    List<Object[]> countDashboardFacts();
+
+    @Query("SELECT o.sectorActivity, o.modality, o.StudyLevel, o.location FROM offer o WHERE o.regionId IS NULL")
+    List<Object[]> findDashboardFactsWithoutDerivedColumns();
+
+    // (date_publication, sector_activity, location) of the offers published between the two dates, both included
+    @Query("SELECT o.datePublication, o.sectorActivity, o.location FROM offer o " +
+            "WHERE o.datePublication BETWEEN :from AND :to")
+    List<Object[]> findPublicationFacts(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // (offer_id, date_publication, company_name, sector_activity, skills, location) of the same offers; also read one day
+    // at a time to rebuild the stale days of OfferCardinalitySketches (idx_offer_publication)
+    @Query("SELECT o.offer_id, o.datePublication, o.companyName, o.sectorActivity, o.skills, o.location FROM offer o " +
+            "WHERE o.datePublication BETWEEN :from AND :to")
+    List<Object[]> findDistinctValueFacts(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // (offer_id, basic_salary, sector_activity, region_id, location, contract type name) of the offers with a salary,
+    // one row per contract type (null type name for offers without), rows of an offer next to each other;
+    // location only serves the rows whose region_id is not computed yet
+    @Query("SELECT o.offer_id, o.basicSalary, o.sectorActivity, o.regionId, o.location, ct.typeName FROM offer o " +
+            "LEFT JOIN o.contractTypes ct WHERE o.basicSalary > 0 ORDER BY o.offer_id")
+    List<Object[]> findSalaryFacts();
+
+    // Positive salaries of the given offers, to rebuild a salary sketch (see OfferSalaryDigests)
+    @Query("SELECT o.basicSalary FROM offer o WHERE o.offer_id IN :ids AND o.basicSalary > 0")
+    List<Float> findSalariesByIds(@Param("ids") Collection<Integer> ids);
+
+    // (offer_id, location, sector_activity, modality, study_level, date_publication, contract type name) of every offer,
+    // one row per contract type as in findSalaryFacts (see OfferDataCube)
+    @Query("SELECT o.offer_id, o.location, o.sectorActivity, o.modality, o.StudyLevel, o.datePublication, ct.typeName " +
+            "FROM offer o LEFT JOIN o.contractTypes ct ORDER BY o.offer_id")
+    List<Object[]> findCubeFacts();
+
+    // Backfill of the derived columns (see OfferDerivedColumnsBackfill): raw values of the rows not computed yet,
+    // by increasing offer_id, then a bulk update that leaves updated_at and the entity listeners alone
+    @Query("SELECT o.offer_id, o.location, o.StudyLevel, o.experience FROM offer o " +
+            "WHERE o.regionId IS NULL AND o.offer_id > :after ORDER BY o.offer_id")
+    List<Object[]> findRawValuesWithoutDerivedColumns(@Param("after") int after, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE offer o SET o.regionId = :regionId, o.studyLevelMask = :studyLevelMask, " +
+            "o.experienceMinYears = :minYears, o.experienceMaxYears = :maxYears WHERE o.offer_id = :id")
+    int updateDerivedColumns(@Param("id") int id, @Param("regionId") int regionId, @Param("studyLevelMask") int studyLevelMask,
+                             @Param("minYears") Integer minYears, @Param("maxYears") Integer maxYears);
+
+    // Keyset (seek) pagination on (date_publication DESC, offer_id DESC), backed by idx_offer_publication.
+    // Offers without a publication date come after all dated ones, ordered by offer_id DESC.
+    @EntityGraph("offer.list")
+    @Query("SELECT o FROM offer o WHERE o.datePublication IS NOT NULL ORDER BY o.datePublication DESC, o.offer_id DESC")
+    List<offer> findFirstPublishedPage(Pageable pageable);
+
+    @EntityGraph("offer.list")
+    @Query("SELECT o FROM offer o WHERE o.datePublication < :date OR (o.datePublication = :date AND o.offer_id < :id) " +
+            "ORDER BY o.datePublication DESC, o.offer_id DESC")
+    List<offer> findPublishedPageAfter(@Param("date") LocalDate date, @Param("id") int id, Pageable pageable);
+
+    @EntityGraph("offer.list")
+    @Query("SELECT o FROM offer o WHERE o.datePublication IS NULL AND o.offer_id < :id ORDER BY o.offer_id DESC")
+    List<offer> findUnpublishedPageAfter(@Param("id") int id, Pageable pageable);
+
+    // Forward-only cursor over the whole table; must be consumed inside a transaction and closed.
+    // With MySQL the fetch size is only honoured when the JDBC URL sets useCursorFetch=true.
+    // "offer.list" only joins to-one associations, so each row is still one offer; see offerService.exportOffers
+    // for the collections.
+    @EntityGraph("offer.list")
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "" + OFFER_STREAM_FETCH_SIZE),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("SELECT o FROM offer o ORDER BY o.offer_id")
+    Stream<offer> streamAll();
+
+    // Same cursor over the columns of OfferColumnarSnapshot only
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "" + OFFER_STREAM_FETCH_SIZE),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("SELECT o.sectorActivity, o.regionId, o.location, o.modality, o.datePublication, o.basicSalary FROM offer o")
+    Stream<Object[]> streamColumnarFacts();
 }
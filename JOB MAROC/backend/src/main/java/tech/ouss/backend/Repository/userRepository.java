@@ -19,6 +19,9 @@ public interface userRepository extends JpaRepository<userEntity, Integer> {
     userEntity findById(int id);
     @Query("SELECT u FROM userEntity u WHERE u.is_accepted = :acceptanceStatus")
     List<userEntity> findByIs_accepted(@Param("acceptanceStatus") AcceptanceStatus acceptanceStatus); // Use @Param
+    // Token version alone, for TokenVersionRegistry; null for an unknown user
+    @Query("SELECT u.tokenVersion FROM userEntity u WHERE u.userId = :userId")
+    Long findTokenVersionById(@Param("userId") long userId);
 
 //    void deleteById(int id);
 }
@@ -2,8 +2,12 @@ package tech.ouss.backend;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(scanBasePackages = "tech.ouss.backend")
+@EnableAsync
+@EnableScheduling
 public class backendApplication {
 
 	public static void main(String[] args) {
@@ -1,5 +1,6 @@
 package tech.ouss.backend.components;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -22,6 +23,9 @@ import java.io.IOException;
  * This filter intercepts incoming requests once, extracts the JWT token from the
  * Authorization header, validates it, and sets the user authentication
  * in the Spring Security Context if the token is valid.
+ * The principal is built from the claims of the token as long as its token version is the current one
+ * (see TokenVersionRegistry); the user is only loaded from the database for stale or legacy tokens, and a token
+ * of a deleted user authenticates nobody.
  */
 // @Component // Remove @Component here if instantiated manually in SecurityConfig
 public class AuthTokenFilter extends OncePerRequestFilter {
@@ -29,6 +33,7 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     // Use final fields and constructor injection - generally preferred
     private final JwtUtils jwtUtils;
     private final UserDetailsService userDetailsService; // Use the interface
+    private final TokenVersionRegistry tokenVersionRegistry;
 
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
@@ -36,11 +41,13 @@ public class AuthTokenFilter extends OncePerRequestFilter {
      * Constructor for dependency injection.
      * @param jwtUtils Utility class for JWT operations.
      * @param userDetailsService Service to load user-specific data.
+     * @param tokenVersionRegistry Current token version of each user.
      */
     // @Autowired // No need for @Autowired on constructor if dependencies are managed by Spring
-    public AuthTokenFilter(JwtUtils jwtUtils, UserDetailsService userDetailsService) {
+    public AuthTokenFilter(JwtUtils jwtUtils, UserDetailsService userDetailsService, TokenVersionRegistry tokenVersionRegistry) {
         this.jwtUtils = jwtUtils;
         this.userDetailsService = userDetailsService;
+        this.tokenVersionRegistry = tokenVersionRegistry;
     }
 
     /**
@@ -63,16 +70,15 @@ public class AuthTokenFilter extends OncePerRequestFilter {
             // 1. Parse JWT from the Authorization header
             String jwt = parseJwt(request);
 
-            // 2. Validate the JWT
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                // 3. Extract username from the validated token
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
+            // 2. Validate the JWT, parsed once (or not at all if it was verified before)
+            Claims claims = jwt != null ? jwtUtils.getVerifiedClaims(jwt) : null;
+            // 3. Trust the claims of a current token, otherwise load UserDetails from the database
+            UserDetails userDetails = claims != null ? userDetailsOf(claims) : null;
+            if (userDetails != null) {
+                // 4. Extract username from the validated token
+                String username = claims.getSubject();
                 logger.debug("Username extracted from JWT: {}", username);
 
-                // 4. Load UserDetails from the database
-                // It's crucial that your UserDetailsService implementation handles UsernameNotFoundException
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
                 // 5. Create an Authentication token
                 // Use UsernamePasswordAuthenticationToken for standard Spring Security flow
                 UsernamePasswordAuthenticationToken authentication =
@@ -102,6 +108,25 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Trusts the claims of a current token, otherwise loads the user from the database.
+     *
+     * @param claims The claims of a verified token.
+     * @return The principal, or null if the user no longer exists.
+     */
+    private UserDetails userDetailsOf(Claims claims) {
+        JwtUserDetails fromToken = jwtUtils.getUserDetailsFromJwtToken(claims);
+        if (fromToken != null && tokenVersionRegistry.isCurrent(fromToken.getUserId(), fromToken.getTokenVersion())) {
+            return fromToken;
+        }
+        // It's crucial that your UserDetailsService implementation handles UsernameNotFoundException
+        UserDetails userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+        if (userDetails instanceof JwtUserDetails user) {
+            tokenVersionRegistry.update(user.getUserId(), user.getTokenVersion());
+        }
+        return userDetails;
+    }
+
     /**
      * Extracts the JWT token from the 'Authorization: Bearer <token>' header.
      *
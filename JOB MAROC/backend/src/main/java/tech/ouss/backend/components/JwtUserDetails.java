@@ -0,0 +1,100 @@
+package tech.ouss.backend.components;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import tech.ouss.backend.Enums.AcceptanceStatus;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable principal holding what userEntity exposes as UserDetails, without the entity and its associations:
+ * built from the claims of a verified JWT (see JwtUtils.getUserDetailsFromJwtToken), or from the user row by
+ * CustomUserDetailsService, which also sets the password hash for sign-in. Code that needs the whole user loads
+ * it by username.
+ */
+public class JwtUserDetails implements UserDetails {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long userId;
+    private final String email;
+    private final String roleName;
+    private final AcceptanceStatus acceptanceStatus;
+    private final long tokenVersion;
+    private final String password; // Encoded; null when built from a token
+
+    public JwtUserDetails(long userId, String email, String roleName, AcceptanceStatus acceptanceStatus, long tokenVersion) {
+        this(userId, email, roleName, acceptanceStatus, tokenVersion, null);
+    }
+
+    public JwtUserDetails(long userId, String email, String roleName, AcceptanceStatus acceptanceStatus, long tokenVersion,
+                          String password) {
+        this.userId = userId;
+        this.email = email;
+        this.roleName = roleName;
+        this.acceptanceStatus = acceptanceStatus;
+        this.tokenVersion = tokenVersion;
+        this.password = password;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public String getRoleName() {
+        return roleName;
+    }
+
+    public AcceptanceStatus getAcceptanceStatus() {
+        return acceptanceStatus;
+    }
+
+    public long getTokenVersion() {
+        return tokenVersion;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        if (roleName == null) {
+            return List.of();
+        }
+        return List.of(new SimpleGrantedAuthority(roleName));
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return acceptanceStatus == AcceptanceStatus.ACCEPTED; // Same rule as userEntity
+    }
+
+    @Override
+    public String toString() {
+        return "JwtUserDetails{userId=" + userId + ", email=" + email + ", role=" + roleName + "}";
+    }
+}
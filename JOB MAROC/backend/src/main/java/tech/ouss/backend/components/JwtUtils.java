@@ -4,6 +4,7 @@ import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,9 +12,17 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
+import tech.ouss.backend.Enums.AcceptanceStatus;
+import tech.ouss.backend.models.userEntity;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Utility class for handling JWT (JSON Web Token) operations:
@@ -21,11 +30,22 @@ import java.util.Date;
  * - Validation of tokens
  * - Extraction of information (like username) from tokens
  * - Parsing tokens from HTTP requests
+ * Tokens issued for a userEntity also carry its role, acceptance status, id and token version,
+ * so that a request can be authenticated without loading the user (see AuthTokenFilter).
+ * The signing key and the parser are built once. Verified tokens are remembered (by SHA-256 of the token, up to
+ * spring.app.jwtCacheSize, least recently used first out) until their expiration, so a client sending the same
+ * bearer token again skips the signature verification and the parsing.
  */
 @Component
 public class JwtUtils {
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
+    // Claims added to the tokens of a userEntity
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_ACCEPTANCE = "acceptance";
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_TOKEN_VERSION = "ver";
+
     // Secret key for signing the JWT. Should be strong and kept secure.
     // Loaded from application.properties (or environment variables).
     @Value("${spring.app.jwtSecret}")
@@ -36,6 +56,33 @@ public class JwtUtils {
     @Value("${spring.app.jwtExpirationMs}")
     private int jwtExpirationMs;
 
+    // Maximum number of verified tokens remembered; 0 disables the cache
+    @Value("${spring.app.jwtCacheSize:10000}")
+    private int jwtCacheSize;
+
+    private SecretKey key;
+    private JwtParser parser; // Immutable, shared by all requests
+
+    // SHA-256 of a verified token -> its claims, in access order
+    private record VerifiedToken(Claims claims, long expiresAt) {
+    }
+
+    private Map<String, VerifiedToken> verifiedTokens;
+
+    @PostConstruct
+    void init() {
+        this.key = key();
+        this.parser = Jwts.parser()
+                .verifyWith(key) // Verify the signature using the secret key
+                .build();
+        this.verifiedTokens = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+                return size() > jwtCacheSize;
+            }
+        };
+    }
+
     /**
      * Generates a JWT token for the given authenticated user details.
      *
@@ -50,11 +97,23 @@ public class JwtUtils {
         logger.debug("Generating JWT for user: {}, Expiration: {}", username, expiryDate);
 
         // Build the JWT token
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder();
+        if (userDetails instanceof userEntity user) {
+            builder.claim(CLAIM_ROLE, user.getRole() != null ? user.getRole().getRole_name() : null)
+                    .claim(CLAIM_ACCEPTANCE, user.getIs_accepted() != null ? user.getIs_accepted().name() : null)
+                    .claim(CLAIM_USER_ID, user.getUserId())
+                    .claim(CLAIM_TOKEN_VERSION, user.getTokenVersion());
+        } else if (userDetails instanceof JwtUserDetails user) {
+            builder.claim(CLAIM_ROLE, user.getRoleName())
+                    .claim(CLAIM_ACCEPTANCE, user.getAcceptanceStatus() != null ? user.getAcceptanceStatus().name() : null)
+                    .claim(CLAIM_USER_ID, user.getUserId())
+                    .claim(CLAIM_TOKEN_VERSION, user.getTokenVersion());
+        }
+        return builder
                 .subject(username) // Set the subject (usually the username)
                 .issuedAt(now) // Set the time the token was issued
                 .expiration(expiryDate) // Set the expiration date/time
-                .signWith(key(), Jwts.SIG.HS512) // Sign the token with the secret key using HS512
+                .signWith(key, Jwts.SIG.HS512) // Sign the token with the secret key using HS512
                 .compact(); // Build and serialize the token to a compact string
     }
 
@@ -62,18 +121,29 @@ public class JwtUtils {
      * Extracts the username from a given JWT token.
      *
      * @param token The JWT token string.
-     * @return The username contained within the token's subject claim.
+     * @return The username contained within the token's subject claim, or null if the token is not valid.
      */
     public String getUserNameFromJwtToken(String token) {
-        // Parse the token and extract the claims payload
-        Claims claims = Jwts.parser()
-                .verifyWith(key()) // Verify the signature using the secret key
-                .build()
-                .parseSignedClaims(token) // Parse the token string
-                .getPayload(); // Get the claims payload
-
+        Claims claims = getVerifiedClaims(token);
         // Return the subject claim (which should be the username)
-        return claims.getSubject();
+        return claims != null ? claims.getSubject() : null;
+    }
+
+    /**
+     * Builds the principal carried by a token from its claims, without any database access.
+     *
+     * @param claims The claims of a verified token (see getVerifiedClaims).
+     * @return The principal, or null for a token without the user claims (issued before they were added).
+     */
+    public JwtUserDetails getUserDetailsFromJwtToken(Claims claims) {
+        Number userId = claims.get(CLAIM_USER_ID, Number.class);
+        Number tokenVersion = claims.get(CLAIM_TOKEN_VERSION, Number.class);
+        if (userId == null || tokenVersion == null) {
+            return null;
+        }
+        String acceptance = claims.get(CLAIM_ACCEPTANCE, String.class);
+        return new JwtUserDetails(userId.longValue(), claims.getSubject(), claims.get(CLAIM_ROLE, String.class),
+                acceptance != null ? AcceptanceStatus.valueOf(acceptance) : null, tokenVersion.longValue());
     }
 
     /**
@@ -83,19 +153,50 @@ public class JwtUtils {
      * @return true if the token is valid, false otherwise.
      */
     public boolean validateJwtToken(String authToken) {
+        return getVerifiedClaims(authToken) != null;
+    }
+
+    /**
+     * Verifies a JWT token (signature and expiration) and returns its claims, parsing it only the first time
+     * it is seen.
+     *
+     * @param authToken The JWT token string to verify.
+     * @return The claims of the token, or null if the token is not valid.
+     */
+    public Claims getVerifiedClaims(String authToken) {
         if (!StringUtils.hasText(authToken)) {
             logger.warn("JWT token string is empty or null.");
-            return false;
+            return null;
+        }
+        String cacheKey = jwtCacheSize > 0 ? sha256(authToken) : null;
+        if (cacheKey != null) {
+            VerifiedToken verified;
+            synchronized (verifiedTokens) {
+                verified = verifiedTokens.get(cacheKey);
+            }
+            if (verified != null) {
+                if (System.currentTimeMillis() < verified.expiresAt()) {
+                    return verified.claims();
+                }
+                synchronized (verifiedTokens) {
+                    verifiedTokens.remove(cacheKey);
+                }
+                logger.error("JWT token is expired: {}", verified.claims().getExpiration());
+                return null;
+            }
         }
         try {
             // Attempt to parse the token. If successful, it means the signature is valid
             // and the token hasn't expired (parsing checks expiration by default).
-            Jwts.parser()
-                    .verifyWith(key()) // Specify the key for verification
-                    .build()
-                    .parseSignedClaims(authToken); // Parse and validate
+            Claims claims = parser.parseSignedClaims(authToken).getPayload(); // Parse and validate
             logger.debug("JWT token is valid.");
-            return true;
+            if (cacheKey != null) {
+                long expiresAt = claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE;
+                synchronized (verifiedTokens) {
+                    verifiedTokens.put(cacheKey, new VerifiedToken(claims, expiresAt));
+                }
+            }
+            return claims;
         } catch (SignatureException e) {
             // Logged when the JWT signature does not match the expected signature.
             logger.error("Invalid JWT signature: {}", e.getMessage());
@@ -118,7 +219,7 @@ public class JwtUtils {
         }
 
         // If any exception occurred, the token is invalid.
-        return false;
+        return null;
     }
 
     /**
@@ -139,9 +240,19 @@ public class JwtUtils {
     }
 
 
+    // Cache key of a token: its SHA-256, so that the cache holds no usable token
+    private static String sha256(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e); // Mandatory in every JRE
+        }
+    }
+
     /**
      * Generates the signing key from the base64 encoded secret string.
-     * Uses HMAC-SHA algorithm (specifically HS512 in generateJwtToken).
+     * Uses HMAC-SHA algorithm (specifically HS512 in generateJwtToken). Called once, see init().
      *
      * @return The SecretKey object used for signing and verification.
      */
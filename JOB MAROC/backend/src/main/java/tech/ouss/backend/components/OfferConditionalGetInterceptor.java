@@ -0,0 +1,58 @@
+package tech.ouss.backend.components;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.method.PreAuthorizeAuthorizationManager;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.util.SimpleMethodInvocation;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import tech.ouss.backend.search.OfferCatalogVersion;
+
+/**
+ * Conditional GET for the offer and statistics endpoints, whose responses only change when offers are written.
+ * Every response carries the catalogue version as ETag / Last-Modified; a request presenting the current
+ * version gets a 304 before the controller runs, so neither the repository nor Jackson is touched.
+ * The ETag is shared by all URLs of these endpoints, which is fine since validators are scoped per URL.
+ * Interceptors run before method security, so the handler's @PreAuthorize rule is checked here first:
+ * a caller it would reject goes on to the handler and is refused there, instead of getting a 304.
+ * Note that offers embed their manager's profile, whose changes alone do not bump the version.
+ */
+@Component
+public class OfferConditionalGetInterceptor implements HandlerInterceptor {
+
+    private final OfferCatalogVersion catalogVersion;
+    private final PreAuthorizeAuthorizationManager preAuthorize = new PreAuthorizeAuthorizationManager();
+
+    public OfferConditionalGetInterceptor(OfferCatalogVersion catalogVersion) {
+        this.catalogVersion = catalogVersion;
+    }
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request,
+                             @NonNull HttpServletResponse response,
+                             @NonNull Object handler) {
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+            return true;
+        }
+        if (handler instanceof HandlerMethod handlerMethod && !isAuthorized(handlerMethod)) {
+            return true;
+        }
+        // Let clients cache but revalidate every time
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        ServletWebRequest webRequest = new ServletWebRequest(request, response);
+        // Sets the ETag and Last-Modified headers, and the 304 status if the client is up to date
+        return !webRequest.checkNotModified(catalogVersion.getETag(), catalogVersion.getLastModified());
+    }
+
+    private boolean isAuthorized(HandlerMethod handlerMethod) {
+        AuthorizationDecision decision = preAuthorize.check(SecurityContextHolder.getContext()::getAuthentication,
+                new SimpleMethodInvocation(handlerMethod.getBean(), handlerMethod.getMethod()));
+        return decision == null || decision.isGranted();
+    }
+}
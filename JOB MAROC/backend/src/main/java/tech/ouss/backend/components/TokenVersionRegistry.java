@@ -0,0 +1,62 @@
+package tech.ouss.backend.components;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tech.ouss.backend.Repository.userRepository;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Last known token version (userEntity.tokenVersion) of each user, so that AuthTokenFilter can trust the claims
+ * of a JWT without reading the user: a token carrying the registered version is current.
+ * An entry is read from the database (the token_version column only) the first time a user is checked, and again
+ * once it is older than spring.app.tokenVersionTtlMs (60 s by default, 0 reads it on every check), so that changes
+ * written by another instance or directly in the database apply after the TTL at most. UserEntityListener raises
+ * the entry of a user as soon as a change made here is committed.
+ * Versions only move up, so a stale read can never lower a version raised in the meantime; deleted users get a
+ * version no token can carry.
+ */
+@Component
+public class TokenVersionRegistry {
+
+    private static final long DELETED = Long.MAX_VALUE;
+
+    private record Entry(long version, long checkedAt) {
+    }
+
+    private final ConcurrentHashMap<Long, Entry> versions = new ConcurrentHashMap<>();
+    // Looked up lazily: the repository depends on the EntityManagerFactory, which instantiates UserEntityListener
+    private final ObjectProvider<userRepository> userRepository;
+
+    @Value("${spring.app.tokenVersionTtlMs:60000}")
+    private long ttlMs;
+
+    public TokenVersionRegistry(ObjectProvider<userRepository> userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /** Whether {@code tokenVersion} is the current version of the user; false for a deleted user. */
+    public boolean isCurrent(long userId, long tokenVersion) {
+        Entry entry = versions.get(userId);
+        if (entry == null || System.currentTimeMillis() - entry.checkedAt() >= ttlMs) {
+            Long version = userRepository.getObject().findTokenVersionById(userId);
+            entry = record(userId, version != null ? version : DELETED);
+        }
+        return entry.version() == tokenVersion;
+    }
+
+    public void update(long userId, long tokenVersion) {
+        record(userId, tokenVersion);
+    }
+
+    public void userDeleted(long userId) {
+        record(userId, DELETED);
+    }
+
+    private Entry record(long userId, long version) {
+        Entry checked = new Entry(version, System.currentTimeMillis());
+        return versions.merge(userId, checked, (known, read) ->
+                new Entry(Math.max(known.version(), read.version()), read.checkedAt()));
+    }
+}
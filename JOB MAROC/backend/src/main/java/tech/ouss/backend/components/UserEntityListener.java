@@ -0,0 +1,102 @@
+package tech.ouss.backend.components;
+
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import jakarta.persistence.PreUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tech.ouss.backend.Enums.AcceptanceStatus;
+import tech.ouss.backend.models.userEntity;
+import tech.ouss.backend.services.CustomUserDetailsService;
+
+import java.util.Objects;
+
+/**
+ * JPA lifecycle listener of {@link userEntity}: bumps the token version of a user whenever what its JWTs carry
+ * (email, role, acceptance status) or its password changes, whichever code path wrote the user, and reports the
+ * new version to {@link TokenVersionRegistry} once the transaction has committed.
+ * Every committed update or delete of a user also evicts it from the principal cache of CustomUserDetailsService,
+ * so status, role, password and profile changes apply to the very next request or sign-in.
+ * Instantiated by Spring through Hibernate's bean container, like OfferEntityListener; the user details service
+ * is looked up lazily because it depends on the repository, hence on the EntityManagerFactory.
+ */
+@Component
+public class UserEntityListener {
+
+    /** What the JWTs of a user carry, plus its password. */
+    public record AuthState(String email, Integer roleId, AcceptanceStatus acceptanceStatus, String password) {
+    }
+
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final ObjectProvider<CustomUserDetailsService> userDetailsService;
+
+    public UserEntityListener(TokenVersionRegistry tokenVersionRegistry,
+                              ObjectProvider<CustomUserDetailsService> userDetailsService) {
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.userDetailsService = userDetailsService;
+    }
+
+    @PostLoad
+    @PostPersist
+    public void userLoaded(userEntity user) {
+        user.setLoadedAuthState(authStateOf(user));
+        user.setLoadedTokenVersion(user.getTokenVersion());
+    }
+
+    @PreUpdate
+    public void userUpdating(userEntity user) {
+        // A detached copy merged from a request body carries version 0: never let the version go down
+        long version = Math.max(user.getTokenVersion(), user.getLoadedTokenVersion());
+        if (!Objects.equals(authStateOf(user), user.getLoadedAuthState())) {
+            version++;
+        }
+        user.setTokenVersion(version);
+    }
+
+    @PostUpdate
+    public void userUpdated(userEntity user) {
+        long userId = user.getUserId();
+        long version = user.getTokenVersion();
+        String email = user.getEmail();
+        // The previous email too, in case it changed
+        String loadedEmail = user.getLoadedAuthState() != null ? user.getLoadedAuthState().email() : null;
+        userLoaded(user);
+        afterCommit(() -> {
+            tokenVersionRegistry.update(userId, version);
+            userDetailsService.getObject().evict(email);
+            userDetailsService.getObject().evict(loadedEmail);
+        });
+    }
+
+    @PostRemove
+    public void userRemoved(userEntity user) {
+        long userId = user.getUserId();
+        String email = user.getEmail();
+        afterCommit(() -> {
+            tokenVersionRegistry.userDeleted(userId);
+            userDetailsService.getObject().evict(email);
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static AuthState authStateOf(userEntity user) {
+        Integer roleId = user.getRole() != null ? user.getRole().getRole_id() : null;
+        return new AuthState(user.getEmail(), roleId, user.getIs_accepted(), user.getPassword());
+    }
+}
@@ -21,6 +21,7 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import tech.ouss.backend.components.AuthEntryPointJwt;
 import tech.ouss.backend.components.AuthTokenFilter;
 import tech.ouss.backend.components.JwtUtils;
+import tech.ouss.backend.components.TokenVersionRegistry;
 import tech.ouss.backend.services.CustomUserDetailsService;
 
 import java.util.Arrays;
@@ -40,6 +41,9 @@ public class SecurityConfig {
     @Autowired
     private JwtUtils jwtUtils;
 
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+
     /**
      * Creates and configures the custom JWT authentication filter.
      * This filter is responsible for processing JWT tokens in requests.
@@ -48,7 +52,7 @@ public class SecurityConfig {
     @Bean
     public AuthTokenFilter authenticationJwtTokenFilter() {
         // Instantiate the filter with its dependencies
-        return new AuthTokenFilter(jwtUtils, userDetailsService);
+        return new AuthTokenFilter(jwtUtils, userDetailsService, tokenVersionRegistry);
     }
 
     @Bean
@@ -79,7 +83,9 @@ public class SecurityConfig {
         // Allow common HTTP methods
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
         // Allow standard headers and custom headers like Authorization
-        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Cache-Control", "Content-Type", "X-Requested-With"));
+        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Cache-Control", "Content-Type", "X-Requested-With", "If-None-Match", "If-Modified-Since"));
+        // Let the frontend read the validators of conditional GETs (see OfferConditionalGetInterceptor)
+        configuration.setExposedHeaders(Arrays.asList("ETag", "Last-Modified"));
         // Allow credentials (like cookies or authorization headers)
         configuration.setAllowCredentials(true);
         // Set max age for pre-flight requests (OPTIONS)
@@ -0,0 +1,26 @@
+package tech.ouss.backend.configurations;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import tech.ouss.backend.components.OfferConditionalGetInterceptor;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final OfferConditionalGetInterceptor offerConditionalGetInterceptor;
+
+    public WebConfig(OfferConditionalGetInterceptor offerConditionalGetInterceptor) {
+        this.offerConditionalGetInterceptor = offerConditionalGetInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Endpoints whose responses are derived from the offer table only
+        registry.addInterceptor(offerConditionalGetInterceptor)
+                .addPathPatterns("/offers/**", "/statistics/**")
+                // cache-metrics changes with every request, olap with every snapshot refresh, not with offers;
+                // distinct defaults its date range to the current month, which moves without any offer write
+                .excludePathPatterns("/statistics/cache-metrics", "/statistics/olap", "/statistics/distinct/**");
+    }
+}
@@ -1,13 +1,19 @@
 package tech.ouss.backend.controllers;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import tech.ouss.backend.services.StatisticsCache;
 import tech.ouss.backend.services.StatisticsService;
 
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -16,9 +22,11 @@ import java.util.Map;
 public class StatiscticsController {
 
     private final StatisticsService statisticsService;
+    private final StatisticsCache statisticsCache;
 
-    public StatiscticsController(StatisticsService statisticsService) {
+    public StatiscticsController(StatisticsService statisticsService, StatisticsCache statisticsCache) {
         this.statisticsService = statisticsService;
+        this.statisticsCache = statisticsCache;
     }
 
     /**
@@ -28,38 +36,243 @@ public class StatiscticsController {
      */
     @GetMapping("/top5-sectors")
     @PreAuthorize("hasAnyAuthority('ADMIN')") // Exemple de sécurité : ajustez selon vos besoins
-    public ResponseEntity<List<Map<String, Object>>> getTop5Sectors() {
-        List<Map<String, Object>> topSectors = statisticsService.getTop5Sectors();
-        return ResponseEntity.ok(topSectors);
+    public ResponseEntity<?> getTop5Sectors(StatisticsService.OfferFilter filter) {
+        try {
+            List<Map<String, Object>> topSectors = statisticsCache.get(key("top5-sectors", filter),
+                    () -> statisticsService.getTop5Sectors(filter));
+            return ResponseEntity.ok(topSectors);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Top des compétences, entreprises qui recrutent ou intitulés de poste : field = skills, companies ou titles.
+     */
+    @GetMapping("/top/{field}")
+    @PreAuthorize("hasAnyAuthority('ADMIN')")
+    public ResponseEntity<?> getTopTerms(@PathVariable String field, @RequestParam(defaultValue = "10") int limit) {
+        try {
+            return ResponseEntity.ok(statisticsCache.get(key("top", field, limit),
+                    () -> statisticsService.getTopTerms(field, limit)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Les graphiques secteurs, modalité, niveau d'étude et région du tableau de bord en un seul appel.
+     * Comme chacun de ces graphiques, accepte les filtres optionnels de StatisticsService.OfferFilter en paramètres
+     * de requête : region, sector, modality, studyLevel, contractType, from et to (yyyy-MM).
+     */
+    @GetMapping("/dashboard")
+    @PreAuthorize("hasAnyAuthority('ADMIN')")
+    public ResponseEntity<?> getDashboard(StatisticsService.OfferFilter filter) {
+        try {
+            return ResponseEntity.ok(statisticsCache.get(key("dashboard", filter), () -> statisticsService.getDashboard(filter)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @GetMapping("/offers-by-modality")
     @PreAuthorize("hasAnyAuthority('ADMIN')") // Exemple de sécurité
-    public ResponseEntity<List<Map<String, Object>>> getOffersByModality() {
-        List<Map<String, Object>> modalityData = statisticsService.getOffersByModality();
-        return ResponseEntity.ok(modalityData);
+    public ResponseEntity<?> getOffersByModality(StatisticsService.OfferFilter filter) {
+        try {
+            List<Map<String, Object>> modalityData = statisticsCache.get(key("offers-by-modality", filter),
+                    () -> statisticsService.getOffersByModality(filter));
+            return ResponseEntity.ok(modalityData);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @GetMapping("/offers-by-study-level")
     @PreAuthorize("hasAnyAuthority('ADMIN', 'MANAGER')") // Exemple de sécurité
-    public ResponseEntity<List<Map<String, Object>>> getOffersByStudyLevel() {
-        List<Map<String, Object>> studyLevelData = statisticsService.getOffersByStudyLevel();
-        return ResponseEntity.ok(studyLevelData);
+    public ResponseEntity<?> getOffersByStudyLevel(StatisticsService.OfferFilter filter) {
+        try {
+            List<Map<String, Object>> studyLevelData = statisticsCache.get(key("offers-by-study-level", filter),
+                    () -> statisticsService.getOffersByStudyLevel(filter));
+            return ResponseEntity.ok(studyLevelData);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @GetMapping("/offers-by-region")
     @PreAuthorize("hasAnyAuthority('ADMIN')") // Exemple de sécurité
-    public ResponseEntity<List<Map<String, Object>>> getOffersByRegion() {
-        List<Map<String, Object>> regionsData = statisticsService.getOffersByRegion();
-        return ResponseEntity.ok(regionsData);
+    public ResponseEntity<?> getOffersByRegion(StatisticsService.OfferFilter filter) {
+        try {
+            List<Map<String, Object>> regionsData = statisticsCache.get(key("offers-by-region", filter),
+                    () -> statisticsService.getOffersByRegion(filter));
+            return ResponseEntity.ok(regionsData);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
-//    @GetMapping("/offers-monthly-by-year")
-//    @PreAuthorize("hasAnyAuthority('ADMIN')")
-//    public ResponseEntity<List<Map<String, Object>>> getOffersMonthlyByYear(@RequestParam("year") int year) {
-//        List<Map<String, Object>> monthlyData = statisticsService.getMonthlyOfferCountsForYear(year);
-//        return ResponseEntity.ok(monthlyData);
-//    }
+    @GetMapping("/offers-monthly-by-year")
+    @PreAuthorize("hasAnyAuthority('ADMIN')")
+    public ResponseEntity<List<Map<String, Object>>> getOffersMonthlyByYear(@RequestParam("year") int year) {
+        List<Map<String, Object>> monthlyData = statisticsCache.get(key("offers-monthly-by-year", year),
+                () -> statisticsService.getMonthlyOfferCountsForYear(year));
+        return ResponseEntity.ok(monthlyData);
+    }
 
+    /**
+     * Offres publiées par mois de from à to (format yyyy-MM, inclus), avec by=sector ou by=region
+     * pour la répartition de chaque mois.
+     */
+    @GetMapping("/offers-monthly")
+    @PreAuthorize("hasAnyAuthority('ADMIN')")
+    public ResponseEntity<?> getOffersMonthly(@RequestParam("from") YearMonth from, @RequestParam("to") YearMonth to,
+                                              @RequestParam(value = "by", required = false) String by) {
+        try {
+            return ResponseEntity.ok(statisticsCache.get(key("offers-monthly", from, to, by),
+                    () -> statisticsService.getMonthlyOfferCounts(from, to, by)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Offres publiées par jour de from à to (format yyyy-MM-dd, inclus).
+     */
+    @GetMapping("/offers-daily")
+    @PreAuthorize("hasAnyAuthority('ADMIN')")
+    public ResponseEntity<?> getOffersDaily(@RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            return ResponseEntity.ok(statisticsCache.get(key("offers-daily", from, to),
+                    () -> statisticsService.getDailyOfferCounts(from, to)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
 
+    /**
+     * Distribution du salaire de base (count, p25, median, p75, p90) des offres, avec filtres optionnels
+     * sector, region (région principale) et contractType. Sans offre avec salaire, count vaut 0.
+     */
+    @GetMapping("/salary")
+    @PreAuthorize("hasAnyAuthority('ADMIN')")
+    public ResponseEntity<?> getSalary(@RequestParam(required = false) String sector,
+                                       @RequestParam(required = false) String region,
+                                       @RequestParam(required = false) String contractType) {
+        try {
+            List<Map<String, Object>> salaryData = statisticsCache.get(key("salary", sector, region, contractType),
+                    () -> statisticsService.getSalaryStatistics(null, sector, region, contractType));
+            return ResponseEntity.ok(salaryData.isEmpty() ? Map.of("count", 0L) : salaryData.get(0));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Même distribution, par secteur, région ou type de contrat (dimension = sector, region ou contractType),
+     * avec les mêmes filtres optionnels.
+     */
+    @GetMapping("/salary/by-{dimension}")
+    @PreAuthorize("hasAnyAuthority('ADMIN')")
+    public ResponseEntity<?> getSalaryBy(@PathVariable String dimension,
+                                         @RequestParam(required = false) String sector,
+                                         @RequestParam(required = false) String region,
+                                         @RequestParam(required = false) String contractType) {
+        try {
+            return ResponseEntity.ok(statisticsCache.get(key("salary-by", dimension, sector, region, contractType),
+                    () -> statisticsService.getSalaryStatistics(dimension, sector, region, contractType)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Entreprises, compétences et localisations distinctes des offres publiées de from à to (yyyy-MM-dd, inclus ;
+     * par défaut le mois en cours), avec filtre optionnel sector. Estimations avec leur marge d'erreur.
+     */
+    @GetMapping("/distinct")
+    @PreAuthorize("hasAnyAuthority('ADMIN')")
+    public ResponseEntity<?> getDistinctCounts(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                               @RequestParam(required = false) String sector) {
+        LocalDate today = LocalDate.now();
+        LocalDate start = from != null ? from : today.withDayOfMonth(1);
+        LocalDate end = to != null ? to : today;
+        try {
+            return ResponseEntity.ok(statisticsCache.get(key("distinct", start, end, sector),
+                    () -> statisticsService.getDistinctCounts(start, end, sector)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Entreprises distinctes qui recrutent, par secteur, sur la même période que /distinct.
+     */
+    @GetMapping("/distinct/companies-by-sector")
+    @PreAuthorize("hasAnyAuthority('ADMIN')")
+    public ResponseEntity<?> getDistinctCompaniesBySector(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate today = LocalDate.now();
+        LocalDate start = from != null ? from : today.withDayOfMonth(1);
+        LocalDate end = to != null ? to : today;
+        try {
+            return ResponseEntity.ok(statisticsCache.get(key("distinct-companies-by-sector", start, end),
+                    () -> statisticsService.getDistinctCompaniesBySector(start, end)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Tableau croisé à la demande : groupBy = liste de dimensions (sector, region, modality, month), filtres
+     * optionnels sector, region, modality et month (paramètres répétables) et période from/to (yyyy-MM).
+     * Pas de cache : l'instantané en colonnes est lui-même recalculé périodiquement.
+     */
+    @GetMapping("/olap")
+    @PreAuthorize("hasAnyAuthority('ADMIN')")
+    public ResponseEntity<?> getCrossTab(@RequestParam(defaultValue = "") List<String> groupBy,
+                                         @RequestParam(required = false) List<String> sector,
+                                         @RequestParam(required = false) List<String> region,
+                                         @RequestParam(required = false) List<String> modality,
+                                         @RequestParam(required = false) List<String> month,
+                                         @RequestParam(required = false) YearMonth from,
+                                         @RequestParam(required = false) YearMonth to) {
+        Map<String, List<String>> filters = new LinkedHashMap<>();
+        if (sector != null) {
+            filters.put("sector", sector);
+        }
+        if (region != null) {
+            filters.put("region", region);
+        }
+        if (modality != null) {
+            filters.put("modality", modality);
+        }
+        if (month != null) {
+            filters.put("month", month);
+        }
+        try {
+            return ResponseEntity.ok(statisticsService.getCrossTab(groupBy, filters, from, to));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Compteurs du cache des statistiques : hits, misses, requêtes regroupées et temps de calcul.
+     */
+    @GetMapping("/cache-metrics")
+    @PreAuthorize("hasAnyAuthority('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getCacheMetrics() {
+        return ResponseEntity.ok(statisticsCache.getMetrics());
+    }
+
+    // Clé de cache : nom de l'endpoint et valeurs des paramètres
+    private static String key(String endpoint, Object... params) {
+        StringBuilder key = new StringBuilder(endpoint);
+        for (Object param : params) {
+            key.append('\u001F').append(param);
+        }
+        return key.toString();
+    }
 }
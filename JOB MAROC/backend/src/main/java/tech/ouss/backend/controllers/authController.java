@@ -17,6 +17,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.*;
 import tech.ouss.backend.Enums.AcceptanceStatus;
+import tech.ouss.backend.components.JwtUserDetails;
 import tech.ouss.backend.components.JwtUtils;
 import tech.ouss.backend.models.AuthResponse;
 import tech.ouss.backend.models.userEntity;
@@ -74,8 +75,8 @@ public class authController { // Class name should start with uppercase by conve
             SecurityContextHolder.getContext().setAuthentication(authentication);
             logger.info("User '{}' authenticated successfully.", loginRequest.getUsername());
 
-            // Get the authenticated principal (which should be our UserEntity)
-            userEntity userDetails = (userEntity) authentication.getPrincipal();
+            // Get the authenticated principal (built by CustomUserDetailsService)
+            JwtUserDetails userDetails = (JwtUserDetails) authentication.getPrincipal();
 
             String jwtToken = jwtUtils.generateJwtToken(userDetails);
             logger.debug("Generated JWT for user '{}'. Token length: {}", userDetails.getUsername(), jwtToken != null ? jwtToken.length() : 0);
@@ -83,8 +84,8 @@ public class authController { // Class name should start with uppercase by conve
             // Create the response DTO containing username, role, and token
             userDTO responseDTO = new userDTO(
                     userDetails.getUsername(), // email
-                    userDetails.getRole().getRole_name(), // Get role name from the Role entity
-                    userDetails.getIs_accepted(),
+                    userDetails.getRoleName(),
+                    userDetails.getAcceptanceStatus(),
                     jwtToken
             );
 
@@ -1,11 +1,18 @@
 package tech.ouss.backend.controllers;
+import DTO.CursorPage;
+import DTO.OfferCard;
+import DTO.OfferSearchResponse;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
 import tech.ouss.backend.Enums.NotificationType;
 import  tech.ouss.backend.services.*;
 import  tech.ouss.backend.models.*;
+import tech.ouss.backend.search.OfferFilterIndex;
 
+import java.io.IOException;
 import java.util.*;
 
 @RestController
@@ -36,6 +43,121 @@ public class offerController {
         return this.offerService.getAllOffers();
     }
 
+    /**
+     * The catalogue as offer cards: the columns list views show and a description snippet, instead of full offers.
+     */
+    @GetMapping(path = "/cards", produces = "application/json")
+    public List<OfferCard> getAllOfferCards() {
+        return this.offerService.getAllOfferCards();
+    }
+
+    @GetMapping(path = "/{id:\\d+}", produces = "application/json")
+    public ResponseEntity<?> getOfferDetails(@PathVariable int id) {
+        offer offer = this.offerService.getOfferDetails(id);
+        if (offer == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(offer);
+    }
+
+    /**
+     * Paginated catalogue, newest offers first.
+     * Pass the nextCursor of a page back as "cursor" to get the following page.
+     */
+    @GetMapping(path = "/page", produces = "application/json")
+    public ResponseEntity<?> getOffersPage(@RequestParam(required = false) String cursor,
+                                           @RequestParam(defaultValue = "20") int size) {
+        try {
+            CursorPage<offer> page = this.offerService.getOffersPage(cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Full-text search, most relevant offers first.
+     */
+    @GetMapping(path = "/search", produces = "application/json")
+    public ResponseEntity<?> searchOffers(@RequestParam("q") String query,
+                                          @RequestParam(defaultValue = "20") int limit,
+                                          @RequestParam(defaultValue = "true") boolean fuzzy) {
+        if (query == null || query.isBlank()) {
+            return ResponseEntity.badRequest().body("Search query must not be empty.");
+        }
+        OfferSearchResponse<offer> result = this.offerService.searchOffers(query, limit, fuzzy);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Type-ahead suggestions for the search box, most frequent first.
+     * Example: /offers/suggest?q=casa&field=location
+     */
+    @GetMapping(path = "/suggest", produces = "application/json")
+    public ResponseEntity<?> suggest(@RequestParam("q") String prefix,
+                                     @RequestParam(required = false) String field,
+                                     @RequestParam(defaultValue = "10") int limit) {
+        try {
+            return ResponseEntity.ok(this.offerService.suggest(prefix, field, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Offers matching the given filters, most recent first.
+     * Filters: modality, status, contractType, sector, region, studyLevel, experience (0-2, 2-5, 5-10 or 10+ years,
+     * the offers open to that experience); each can be repeated (OR),
+     * different filters are combined with AND. Example: /offers/filter?modality=Remote&modality=Hybrid&region=Casablanca-Settat
+     * An optional q restricts the result to the offers matching the full-text query.
+     */
+    @GetMapping(path = "/filter", produces = "application/json")
+    public ResponseEntity<?> filterOffers(@RequestParam MultiValueMap<String, String> params,
+                                          @RequestParam(name = "q", required = false) String query,
+                                          @RequestParam(defaultValue = "true") boolean fuzzy,
+                                          @RequestParam(required = false) String cursor,
+                                          @RequestParam(defaultValue = "20") int size) {
+        try {
+            CursorPage<offer> page = this.offerService.filterOffers(filterCriteria(params), query, fuzzy, cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Facet counts for the search page ("Remote (312)"), for the same filters and optional q as /offers/filter.
+     */
+    @GetMapping(path = "/facets", produces = "application/json")
+    public ResponseEntity<Map<String, Object>> getFacets(@RequestParam MultiValueMap<String, String> params,
+                                                         @RequestParam(name = "q", required = false) String query,
+                                                         @RequestParam(defaultValue = "true") boolean fuzzy) {
+        return ResponseEntity.ok(this.offerService.getFacets(filterCriteria(params), query, fuzzy));
+    }
+
+    private static Map<String, List<String>> filterCriteria(MultiValueMap<String, String> params) {
+        Map<String, List<String>> criteria = new HashMap<>();
+        for (String dimension : OfferFilterIndex.DIMENSIONS) {
+            List<String> values = params.get(dimension);
+            if (values != null && !values.isEmpty()) {
+                criteria.put(dimension, values);
+            }
+        }
+        return criteria;
+    }
+
+    /**
+     * Streams the whole catalogue as NDJSON (one offer per line) without materialising it in memory.
+     * Used by the "download all" feature and data exports.
+     */
+    @GetMapping(path = "/export", produces = "application/x-ndjson")
+    public void exportOffers(HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=\"offers.ndjson\"");
+        this.offerService.exportOffers(response.getOutputStream());
+    }
+
     @PostMapping(path = "/add" , consumes = "application/json")
     public ResponseEntity<?> createOffer(@Valid @RequestBody offer incomingOffer) { // Added @Valid, renamed parameter
         try {
@@ -142,6 +264,15 @@ public class offerController {
         }
     }
 
+    @GetMapping(path = "/manager/{Email}/cards", produces = "application/json")
+    public ResponseEntity<?> getOfferCardsByManagerEmail(@PathVariable String Email) {
+        List<OfferCard> cards = offerService.getOfferCardsByManagerEmail(Email);
+        if (cards.isEmpty()) {
+            return ResponseEntity.status(404).body("No offers found for this manager.");
+        }
+        return ResponseEntity.ok(cards);
+    }
+
     @GetMapping(path = "/manager/{Email}", produces = "application/json")
     public ResponseEntity<?> getOfferByManagerEmail(@PathVariable String Email) {
         try {
@@ -7,6 +7,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import tech.ouss.backend.Enums.AcceptanceStatus;
 import tech.ouss.backend.Enums.NotificationType;
+import tech.ouss.backend.components.JwtUserDetails;
 import tech.ouss.backend.models.*;
 import tech.ouss.backend.services.*;
 import tech.ouss.backend.Repository.*;
@@ -328,6 +329,13 @@ public class userController {
                 userEntity authenticatedUser = (userEntity) principal;
                 System.out.println(authenticatedUser);
                 return ResponseEntity.ok(authenticatedUser);
+            } else if (principal instanceof JwtUserDetails) {
+                // Immutable principal (token claims or CustomUserDetailsService): load the full user
+                userEntity authenticatedUser = userService.getUserByEmail(((JwtUserDetails) principal).getUsername());
+                if (authenticatedUser == null) {
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found.");
+                }
+                return ResponseEntity.ok(authenticatedUser);
             } else {
                 // This case should ideally not happen in an authenticated context with your setup
                 return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Could not retrieve authenticated user details.");
@@ -2,10 +2,13 @@ package tech.ouss.backend.models;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 import tech.ouss.backend.Enums.Modality;
 import tech.ouss.backend.Enums.OfferStatus;
+import tech.ouss.backend.search.OfferEntityListener;
 
 import java.time.LocalDate; // Prefer LocalDate for date-only fields
 import java.time.LocalDateTime;
@@ -13,12 +16,44 @@ import java.util.HashSet; // Use HashSet for collections
 import java.util.Set;
 
 @Entity
+@EntityListeners(OfferEntityListener.class) // Keeps the in-memory offer indexes in sync
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @EqualsAndHashCode(exclude = {"contractTypes", "languages", "managerId"})
 @ToString(exclude = {"contractTypes", "languages", "managerId"})
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+// Fetch plans picked explicitly by the repository: "offer.list" joins the to-one chain (manager, its user and entreprise)
+// and leaves the collections to @BatchSize, so a page never hits the in-memory pagination of collection fetch joins;
+// "offer.detail" loads a single offer with everything the detail view serialises.
+@NamedEntityGraph(name = "offer.list",
+        attributeNodes = @NamedAttributeNode(value = "managerId", subgraph = "offer.manager"),
+        subgraphs = {
+                @NamedSubgraph(name = "offer.manager", attributeNodes = {
+                        @NamedAttributeNode(value = "user", subgraph = "offer.manager.user"),
+                        @NamedAttributeNode("entreprise")}),
+                @NamedSubgraph(name = "offer.manager.user", attributeNodes = {
+                        @NamedAttributeNode("role"),
+                        @NamedAttributeNode("talent_id")})
+        })
+@NamedEntityGraph(name = "offer.detail",
+        attributeNodes = {
+                @NamedAttributeNode("contractTypes"),
+                @NamedAttributeNode("languages"),
+                @NamedAttributeNode(value = "managerId", subgraph = "offer.manager")},
+        subgraphs = {
+                @NamedSubgraph(name = "offer.manager", attributeNodes = {
+                        @NamedAttributeNode(value = "user", subgraph = "offer.manager.user"),
+                        @NamedAttributeNode("entreprise")}),
+                @NamedSubgraph(name = "offer.manager.user", attributeNodes = {
+                        @NamedAttributeNode("role"),
+                        @NamedAttributeNode("talent_id")})
+        })
+@Table(name = "offer", indexes = {
+        @Index(name = "idx_offer_publication", columnList = "date_publication, offer_id"), // Keyset pagination of the catalogue
+        @Index(name = "idx_offer_region", columnList = "region_id"),
+        @Index(name = "idx_offer_experience", columnList = "experience_min_years, experience_max_years")
+})
 public class offer {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY) // IDENTITY is often preferred for auto-increment
@@ -44,6 +79,7 @@ public class offer {
             inverseJoinColumns = @JoinColumn(name = "contract_type_id") // Column in join table referencing the ContractType ID (matches error message)
     )
     // @JsonIgnore // Keep or remove based on your API response needs
+    @BatchSize(size = 100) // One query per page of offers instead of one per offer
     private Set<ContractType> contractTypes = new HashSet<>();
 
     @Column(name = "date_publication")
@@ -66,6 +102,7 @@ public class offer {
 
     @OneToMany(mappedBy = "offerId", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY) // ALL includes PERSIST
     // @JsonIgnore // Ignore during JSON serialization to prevent infinite loops with offerLanguages
+    @BatchSize(size = 100) // One query per page of offers instead of one per offer
     private Set<offerLanguages> languages = new HashSet<>(); // Renamed and changed to Set
 
     @Column(name = "skills", columnDefinition = "TEXT") // Use TEXT for potentially long skill lists
@@ -96,6 +133,24 @@ public class offer {
     @Column (name = "offer_url")
     private String offerUrl;// URL for the offer, if applicable
 
+    // Derived from location / StudyLevel / experience when the offer is written (StatisticsService.fillDerivedColumns);
+    // a null region_id means not computed yet (rows older than these columns, see OfferDerivedColumnsBackfill)
+    @Column(name = "region_id")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Integer regionId; // Index in StatisticsService.MOROCCAN_REGIONS of the primary region
+
+    @Column(name = "study_level_mask")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Integer studyLevelMask; // Bit i = StatisticsService.STUDY_LEVELS.get(i) is mentioned
+
+    @Column(name = "experience_min_years")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Integer experienceMinYears;
+
+    @Column(name = "experience_max_years")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Integer experienceMaxYears; // null = no upper bound, or unknown
+
     // Ensure these helper methods safely manage bidirectional links
     public void addLanguage(offerLanguages language) {
         if (this.languages == null) {
@@ -5,10 +5,13 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 import lombok.ToString; // Import ToString
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import tech.ouss.backend.Enums.AcceptanceStatus;
+import tech.ouss.backend.components.UserEntityListener;
 import tech.ouss.backend.Enums.SituationFamiliale;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -27,8 +30,9 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @Entity
 @Table(name = "user_entity")
+@EntityListeners(UserEntityListener.class) // Bumps tokenVersion when what the JWTs carry changes
 
-@ToString(exclude = {"talent_id", "notifications", "role"})
+@ToString(exclude = {"talent_id", "notifications", "role", "loadedAuthState"})
 //@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 
 public class userEntity implements UserDetails,Serializable {
@@ -96,6 +100,19 @@ public class userEntity implements UserDetails,Serializable {
     @Column(name = "cin") // Make nullable if it can be null
     private String cin;
 
+    // Carried by the JWTs of the user; a token with an older version is stale (see AuthTokenFilter)
+    @Column(name = "token_version", nullable = false)
+    @ColumnDefault("0")
+    @JsonIgnore
+    private long tokenVersion = 0;
+
+    // Email, role, acceptance status and password as loaded, and the version then (see UserEntityListener)
+    @JsonIgnore
+    private transient UserEntityListener.AuthState loadedAuthState;
+
+    @JsonIgnore
+    private transient long loadedTokenVersion;
+
 
 
     // The back-reference from talent
@@ -105,6 +122,7 @@ public class userEntity implements UserDetails,Serializable {
     private talent talent_id;
 
     @OneToMany(mappedBy = "userRecipent", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @BatchSize(size = 100) // Eager: batch it when a list loads many users (e.g. the managers of a page of offers)
 //    @JsonManagedReference("user-notifications")
 //    @JsonIgnore
     private List<notification> notifications = new ArrayList<>();
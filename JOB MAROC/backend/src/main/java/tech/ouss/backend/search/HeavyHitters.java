@@ -0,0 +1,158 @@
+package tech.ouss.backend.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Most frequent keys of a stream of increments and decrements, in fixed memory whatever the number of distinct
+ * keys: a Count-Min sketch estimates the count of any key, and a min-heap keeps the CAPACITY keys with the highest
+ * estimates seen so far. Counts are never underestimated, and overestimated by at most e / WIDTH of the total of
+ * the stream (with probability 1 - e^-DEPTH).
+ * Unlike Space-Saving, decrements are supported (offers are updated and deleted): a key whose count drops stays
+ * a candidate until a key with a higher estimate is incremented, keys outside the heap are picked up on their
+ * next increment.
+ * Keys are identified by their 64-bit hash ({@link #fingerprint}), so that a decrement only needs the hash.
+ */
+final class HeavyHitters {
+
+    static final int CAPACITY = 200;
+    private static final int DEPTH = 4;
+    private static final int WIDTH = 4096;
+
+    /** A key, its display text and its estimated count. */
+    record Hitter(String key, String text, int count) {
+    }
+
+    private final int[][] sketch = new int[DEPTH][WIDTH];
+    // Min-heap of the candidates by estimated count; positions gives the slot of each fingerprint
+    private final long[] fingerprints = new long[CAPACITY];
+    private final String[] keys = new String[CAPACITY];
+    private final String[] texts = new String[CAPACITY];
+    private final int[] counts = new int[CAPACITY];
+    private final Map<Long, Integer> positions = new HashMap<>();
+    private int size;
+
+    void clear() {
+        for (int[] row : sketch) {
+            Arrays.fill(row, 0);
+        }
+        Arrays.fill(keys, null);
+        Arrays.fill(texts, null);
+        positions.clear();
+        size = 0;
+    }
+
+    static long fingerprint(String key) {
+        return HyperLogLog.hash(key);
+    }
+
+    /** Counts {@code key} (of the given fingerprint) {@code delta} more times; key and text may be null if delta < 0. */
+    void add(long hash, String key, String text, int delta) {
+        int count = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            int[] counters = sketch[row];
+            int column = column(hash, row);
+            counters[column] += delta;
+            count = Math.min(count, counters[column]);
+        }
+        count = Math.max(count, 0);
+
+        Integer position = positions.get(hash);
+        if (position != null) {
+            counts[position] = count;
+            if (count == 0) {
+                removeAt(position);
+            } else if (delta > 0) {
+                siftDown(position);
+            } else {
+                siftUp(position);
+            }
+        } else if (delta > 0 && count > 0) {
+            if (size < CAPACITY) {
+                set(size, hash, key, text, count);
+                siftUp(size++);
+            } else if (count > counts[0]) {
+                positions.remove(fingerprints[0]);
+                set(0, hash, key, text, count);
+                siftDown(0);
+            }
+        }
+    }
+
+    /** The {@code limit} candidates with the highest estimates, highest first. */
+    List<Hitter> top(int limit) {
+        List<Hitter> hitters = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            hitters.add(new Hitter(keys[i], texts[i], counts[i]));
+        }
+        hitters.sort(Comparator.comparingInt(Hitter::count).reversed().thenComparing(Hitter::key));
+        return hitters.size() > limit ? hitters.subList(0, limit) : hitters;
+    }
+
+    // Double hashing (Kirsch-Mitzenmacher): row i uses h1 + i * h2
+    private static int column(long hash, int row) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        return Math.floorMod(h1 + row * h2, WIDTH);
+    }
+
+    private void removeAt(int position) {
+        positions.remove(fingerprints[position]);
+        size--;
+        if (position != size) {
+            set(position, fingerprints[size], keys[size], texts[size], counts[size]);
+            siftDown(position);
+            siftUp(position);
+        }
+        keys[size] = null;
+        texts[size] = null;
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (counts[parent] <= counts[position]) {
+                return;
+            }
+            swap(parent, position);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int smallest = position;
+            for (int child = 2 * position + 1; child <= 2 * position + 2 && child < size; child++) {
+                if (counts[child] < counts[smallest]) {
+                    smallest = child;
+                }
+            }
+            if (smallest == position) {
+                return;
+            }
+            swap(smallest, position);
+            position = smallest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        long fingerprint = fingerprints[i];
+        String key = keys[i];
+        String text = texts[i];
+        int count = counts[i];
+        set(i, fingerprints[j], keys[j], texts[j], counts[j]);
+        set(j, fingerprint, key, text, count);
+    }
+
+    private void set(int position, long fingerprint, String key, String text, int count) {
+        fingerprints[position] = fingerprint;
+        keys[position] = key;
+        texts[position] = text;
+        counts[position] = count;
+        positions.put(fingerprint, position);
+    }
+}
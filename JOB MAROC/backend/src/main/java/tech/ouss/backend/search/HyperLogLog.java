@@ -0,0 +1,150 @@
+package tech.ouss.backend.search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * HyperLogLog sketch: estimates the number of distinct values added, in at most REGISTERS bytes whatever that
+ * number, with a relative standard error of RELATIVE_STANDARD_ERROR. Sketches of disjoint or overlapping sets
+ * are unioned with {@link #addAll}, as if every value had been added to one sketch.
+ * Small sketches keep only their non-zero registers (sparse form) and switch to the array of all registers
+ * once that becomes smaller, so that many sketches of few values stay cheap.
+ */
+final class HyperLogLog {
+
+    static final int PRECISION = 12;
+    static final int REGISTERS = 1 << PRECISION;
+    static final double RELATIVE_STANDARD_ERROR = 1.04 / Math.sqrt(REGISTERS);
+
+    // Largest register value: the remaining 64 - PRECISION hash bits all zero
+    private static final int MAX_RANK = Long.SIZE - PRECISION + 1;
+    // Sparse form: sorted (register index << 8 | value) of the non-zero registers, up to this many entries
+    private static final int SPARSE_LIMIT = REGISTERS / 4 / Integer.BYTES;
+
+    private int[] sparse = new int[0];
+    private byte[] registers;
+
+    void add(String value) {
+        long hash = hash(value);
+        int index = (int) (hash >>> (Long.SIZE - PRECISION));
+        // Position of the first 1 bit in the remaining 64 - PRECISION bits, sentinel bit included
+        int rank = Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1;
+        set(index, rank);
+    }
+
+    void addAll(HyperLogLog other) {
+        if (other.registers != null) {
+            toDense();
+            for (int i = 0; i < REGISTERS; i++) {
+                registers[i] = (byte) Math.max(registers[i], other.registers[i]);
+            }
+        } else {
+            for (int entry : other.sparse) {
+                set(entry >>> 8, entry & 0xFF);
+            }
+        }
+    }
+
+    // Improved raw estimator of Ertl ("New cardinality estimation algorithms for HyperLogLog sketches", 2017):
+    // unbiased over the whole range, without the switch to linear counting nor the bias tables of HyperLogLog++
+    long estimate() {
+        int[] histogram = new int[MAX_RANK + 1];
+        if (registers != null) {
+            for (byte register : registers) {
+                histogram[register]++;
+            }
+        } else {
+            for (int entry : sparse) {
+                histogram[entry & 0xFF]++;
+            }
+            histogram[0] = REGISTERS - sparse.length;
+        }
+        double z = REGISTERS * tau(1 - (double) histogram[MAX_RANK] / REGISTERS);
+        for (int rank = MAX_RANK - 1; rank >= 1; rank--) {
+            z = 0.5 * (z + histogram[rank]);
+        }
+        z += REGISTERS * sigma((double) histogram[0] / REGISTERS);
+        return Math.round(REGISTERS / (2 * Math.log(2)) * REGISTERS / z);
+    }
+
+    private static double sigma(double x) {
+        if (x == 1) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double y = 1;
+        double z = x;
+        double previous;
+        do {
+            x *= x;
+            previous = z;
+            z += x * y;
+            y += y;
+        } while (z != previous);
+        return z;
+    }
+
+    private static double tau(double x) {
+        if (x == 0 || x == 1) {
+            return 0;
+        }
+        double y = 1;
+        double z = 1 - x;
+        double previous;
+        do {
+            x = Math.sqrt(x);
+            previous = z;
+            y *= 0.5;
+            z -= (1 - x) * (1 - x) * y;
+        } while (z != previous);
+        return z / 3;
+    }
+
+    private void set(int index, int rank) {
+        if (registers != null) {
+            registers[index] = (byte) Math.max(registers[index], rank);
+            return;
+        }
+        int position = Arrays.binarySearch(sparse, index << 8);
+        if (position < 0) {
+            position = -position - 1;
+        }
+        if (position < sparse.length && sparse[position] >>> 8 == index) {
+            sparse[position] = index << 8 | Math.max(sparse[position] & 0xFF, rank);
+            return;
+        }
+        if (sparse.length == SPARSE_LIMIT) {
+            toDense();
+            registers[index] = (byte) rank;
+            return;
+        }
+        int[] grown = new int[sparse.length + 1];
+        System.arraycopy(sparse, 0, grown, 0, position);
+        grown[position] = index << 8 | rank;
+        System.arraycopy(sparse, position, grown, position + 1, sparse.length - position);
+        sparse = grown;
+    }
+
+    private void toDense() {
+        if (registers == null) {
+            registers = new byte[REGISTERS];
+            for (int entry : sparse) {
+                registers[entry >>> 8] = (byte) (entry & 0xFF);
+            }
+            sparse = null;
+        }
+    }
+
+    // 64-bit FNV-1a of the UTF-8 bytes, then the MurmurHash3 finalizer to spread the bits
+    static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (b & 0xFF)) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
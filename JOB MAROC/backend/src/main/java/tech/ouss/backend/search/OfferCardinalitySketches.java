@@ -0,0 +1,253 @@
+package tech.ouss.backend.search;
+
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import tech.ouss.backend.Repository.offerRepository;
+import tech.ouss.backend.models.offer;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Distinct companies, skills and locations of the offers published over a date range, kept up to date on every
+ * offer write. Each publication day (date_publication) holds {@link HyperLogLog} sketches of the values of its
+ * offers, in total and per sector; a range query unions the sketches of its days, so its cost depends on the
+ * number of days with offers, not on the number of offers.
+ * Values are compared accent- and case-insensitively: companyName as a whole, skills as the " - " separated parts
+ * of offer.skills and locations as the comma or slash separated parts of offer.location.
+ * A sketch cannot forget a value: a day losing an offer (update or delete) is marked stale, and its sketches are
+ * rebuilt on its next read from the values of its offers, read back from the offer table for that day. So the
+ * memory per day is its sketches plus the ids of its offers in a compressed bitmap, never the values.
+ * Offers without a publication date are left out.
+ */
+@Component
+public class OfferCardinalitySketches implements OfferIndex {
+
+    /** Relative standard error of every estimate; about 95% of the estimates are within twice this error. */
+    public static final double RELATIVE_STANDARD_ERROR = HyperLogLog.RELATIVE_STANDARD_ERROR;
+
+    /** Estimated distinct counts of a date range, and the exact number of offers they were computed from. */
+    public record Estimates(long offers, long companies, long skills, long locations) {
+    }
+
+    private record Contribution(String company, String sector, Set<String> skills, Set<String> locations) {
+    }
+
+    // Sketches of a group of offers
+    private static final class Sketches {
+        private long offers;
+        private final HyperLogLog companies = new HyperLogLog();
+        private final HyperLogLog skills = new HyperLogLog();
+        private final HyperLogLog locations = new HyperLogLog();
+
+        void add(Contribution contribution) {
+            offers++;
+            if (contribution.company() != null) {
+                companies.add(contribution.company());
+            }
+            contribution.skills().forEach(skills::add);
+            contribution.locations().forEach(locations::add);
+        }
+
+        void addAll(Sketches other) {
+            offers += other.offers;
+            companies.addAll(other.companies);
+            skills.addAll(other.skills);
+            locations.addAll(other.locations);
+        }
+    }
+
+    private static final class Day {
+        private final RoaringBitmap offers = new RoaringBitmap();
+        private Sketches all = new Sketches();
+        private Map<String, Sketches> sectors = new HashMap<>();
+        private boolean stale;
+        // Incremented on every change, so that a rebuild made outside the monitor is only kept if still current
+        private long version;
+
+        void sketch(Contribution contribution) {
+            all.add(contribution);
+            if (contribution.sector() != null) {
+                sectors.computeIfAbsent(contribution.sector(), sector -> new Sketches()).add(contribution);
+            }
+        }
+    }
+
+    // A stale day to rebuild: its offers and version when it was found stale
+    private record Rebuild(LocalDate date, RoaringBitmap offers, long version) {
+    }
+
+    // Attempts at rebuilding the stale days of a query outside the monitor before rebuilding them holding it
+    private static final int MAX_REBUILDS = 3;
+
+    private final offerRepository offerRepository;
+    private final NavigableMap<LocalDate, Day> days = new TreeMap<>();
+    // Publication day each offer was counted under, to take it back on update/delete
+    private final Map<Integer, LocalDate> offerDays = new HashMap<>();
+
+    @Autowired
+    public OfferCardinalitySketches(offerRepository offerRepository) {
+        this.offerRepository = offerRepository;
+    }
+
+    /** Sketches that are only ever added to (see StatisticsService in SQL mode), hence never rebuilt. */
+    public OfferCardinalitySketches() {
+        this(null);
+    }
+
+    @Override
+    public synchronized void clear() {
+        days.clear();
+        offerDays.clear();
+    }
+
+    @Override
+    public void add(offer offer) {
+        add(offer.getOffer_id(), offer.getDatePublication(), offer.getCompanyName(), offer.getSectorActivity(),
+                offer.getSkills(), offer.getLocation());
+    }
+
+    /**
+     * Same as {@link #add(offer)} from the raw column values, for sketches built outside the indexer
+     * (see StatisticsService in SQL mode).
+     */
+    public void add(int offerId, LocalDate date, String company, String sector, String skills, String location) {
+        if (date == null) {
+            remove(offerId);
+            return;
+        }
+        Contribution contribution = contributionOf(company, sector, skills, location);
+
+        synchronized (this) {
+            remove(offerId);
+            offerDays.put(offerId, date);
+            Day day = days.computeIfAbsent(date, key -> new Day());
+            day.offers.add(offerId);
+            day.version++;
+            if (!day.stale) {
+                day.sketch(contribution);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void remove(int offerId) {
+        LocalDate date = offerDays.remove(offerId);
+        if (date != null) {
+            Day day = days.get(date);
+            day.offers.remove(offerId);
+            day.stale = true;
+            day.version++;
+            // Drop days falling back to empty, so that ranges only visit days with offers
+            if (day.offers.isEmpty()) {
+                days.remove(date);
+            }
+        }
+    }
+
+    /** Distinct values of the offers published from {@code from} to {@code to} (both included), of one sector or all (null). */
+    public Estimates getEstimates(LocalDate from, LocalDate to, String sector) {
+        return read(from, to, range -> {
+            Sketches union = new Sketches();
+            for (Day day : range) {
+                Sketches sketches = sector == null ? day.all : day.sectors.get(sector);
+                if (sketches != null) {
+                    union.addAll(sketches);
+                }
+            }
+            return new Estimates(union.offers, union.companies.estimate(), union.skills.estimate(), union.locations.estimate());
+        });
+    }
+
+    /** Estimated distinct companies per sector over the offers published from {@code from} to {@code to}. */
+    public Map<String, Long> getCompaniesBySector(LocalDate from, LocalDate to) {
+        return read(from, to, range -> {
+            Map<String, HyperLogLog> sectors = new HashMap<>();
+            for (Day day : range) {
+                day.sectors.forEach((sector, sketches) ->
+                        sectors.computeIfAbsent(sector, key -> new HyperLogLog()).addAll(sketches.companies));
+            }
+            Map<String, Long> estimates = new HashMap<>();
+            sectors.forEach((sector, companies) -> estimates.put(sector, companies.estimate()));
+            return estimates;
+        });
+    }
+
+    // Applies the reader, holding the monitor, to the days of the range once none of them is stale
+    private <T> T read(LocalDate from, LocalDate to, Function<Collection<Day>, T> reader) {
+        for (int attempt = 0; ; attempt++) {
+            Map<Day, Rebuild> stale = new HashMap<>();
+            synchronized (this) {
+                Map<LocalDate, Day> range = days.subMap(from, true, to, true);
+                range.forEach((date, day) -> {
+                    if (day.stale) {
+                        stale.put(day, new Rebuild(date, day.offers.clone(), day.version));
+                    }
+                });
+                if (stale.isEmpty() || attempt == MAX_REBUILDS) {
+                    // Writers outpaced every rebuild made outside the monitor: rebuild holding it
+                    stale.forEach((day, rebuild) -> install(day, sketchesOf(rebuild)));
+                    return reader.apply(range.values());
+                }
+            }
+            // Reads the offers of the stale days without holding the monitor during the queries;
+            // a day changed in the meantime stays stale
+            stale.forEach((day, rebuild) -> {
+                Day sketches = sketchesOf(rebuild);
+                synchronized (this) {
+                    if (day.version == rebuild.version()) {
+                        install(day, sketches);
+                    }
+                }
+            });
+        }
+    }
+
+    private static void install(Day day, Day sketches) {
+        day.all = sketches.all;
+        day.sectors = sketches.sectors;
+        day.stale = false;
+    }
+
+    // Sketches of the offers of a day, from the values stored for them
+    private Day sketchesOf(Rebuild rebuild) {
+        if (offerRepository == null) {
+            throw new IllegalStateException("Sketches without a repository cannot be rebuilt");
+        }
+        Day sketches = new Day();
+        for (Object[] row : offerRepository.findDistinctValueFacts(rebuild.date(), rebuild.date())) {
+            if (rebuild.offers().contains((Integer) row[0])) {
+                sketches.sketch(contributionOf((String) row[2], (String) row[3], (String) row[4], (String) row[5]));
+            }
+        }
+        return sketches;
+    }
+
+    private static Contribution contributionOf(String company, String sector, String skills, String location) {
+        String companyKey = OfferSuggestIndex.normalize(company);
+        return new Contribution(companyKey.isEmpty() ? null : companyKey,
+                sector != null && !sector.trim().isEmpty() ? sector : null,
+                keysOf(skills, "\\s+-\\s+"), keysOf(location, "[,/]"));
+    }
+
+    private static Set<String> keysOf(String text, String separator) {
+        Set<String> keys = new LinkedHashSet<>();
+        if (text != null) {
+            for (String part : text.split(separator)) {
+                String key = OfferSuggestIndex.normalize(part);
+                if (!key.isEmpty()) {
+                    keys.add(key);
+                }
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,56 @@
+package tech.ouss.backend.search;
+
+import org.springframework.stereotype.Component;
+import tech.ouss.backend.models.offer;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version stamp of the offer catalogue, bumped on every offer write reported to {@link OfferIndexer}.
+ * Everything served under /offers and /statistics is derived from the offer table, so a client holding
+ * the current version already has the current data (see OfferConditionalGetInterceptor).
+ * Writes are reported once committed (see OfferEntityListener), so a version never labels uncommitted data.
+ */
+@Component
+public class OfferCatalogVersion implements OfferIndex {
+
+    // Distinguishes versions of this run from those handed out before a restart
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+    private volatile long lastModified = System.currentTimeMillis();
+
+    @Override
+    public void clear() {
+        bump();
+    }
+
+    @Override
+    public void add(offer offer) {
+        bump();
+    }
+
+    @Override
+    public void remove(int offerId) {
+        bump();
+    }
+
+    /** Strong ETag value of the current version, quotes included. */
+    public String getETag() {
+        return "\"" + epoch + "-" + version.get() + "\"";
+    }
+
+    /** Number of writes since startup; changes whenever the catalogue does. */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /** Time of the last write, in epoch milliseconds. */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    private void bump() {
+        version.incrementAndGet();
+        lastModified = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,273 @@
+package tech.ouss.backend.search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tech.ouss.backend.Repository.offerRepository;
+import tech.ouss.backend.services.StatisticsService;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Column-oriented copy of the offer table for ad-hoc cross-tabs (group by / filter on sector, region, modality
+ * and publication month), answered without touching the database.
+ * Each dimension is dictionary-encoded: one int array of codes per dimension, one entry per offer, plus the basic
+ * salary as a float array; a query is a single loop over these arrays.
+ * The snapshot is rebuilt at startup and then every spring.app.olap.refresh-ms (5 min by default) and swapped in
+ * atomically, so queries always see one consistent snapshot, at most that old.
+ * Regions are primary regions (offer.regionId), blank values are filed under StatisticsService.NON_SPECIFIE.
+ */
+@Component
+public class OfferColumnarSnapshot {
+    private static final Logger logger = LoggerFactory.getLogger(OfferColumnarSnapshot.class);
+
+    public enum Dimension {
+        SECTOR("sector"), REGION("region"), MODALITY("modality"), MONTH("month");
+
+        private final String param;
+
+        Dimension(String param) {
+            this.param = param;
+        }
+
+        public String getParam() {
+            return param;
+        }
+
+        public static Dimension fromParam(String param) {
+            for (Dimension dimension : values()) {
+                if (dimension.param.equalsIgnoreCase(param)) {
+                    return dimension;
+                }
+            }
+            throw new IllegalArgumentException("Unknown dimension: " + param);
+        }
+    }
+
+    /** One group of a cross-tab: its dimension values (in groupBy order), offer count and salary statistics. */
+    public record Group(List<String> values, int count, int salaryCount, double averageSalary) {
+    }
+
+    /** Result of a query, with the size and build time of the snapshot it was computed on. */
+    public record Result(List<Group> groups, int offers, long builtAt, long elapsedMicros) {
+    }
+
+    // Beyond this many possible groups, groups are accumulated in a hash map instead of dense arrays
+    private static final int MAX_DENSE_GROUPS = 1 << 20;
+
+    private static final class Snapshot {
+        private final int size;
+        // codes[dimension.ordinal()][offer] indexes dictionaries[dimension.ordinal()]
+        private final int[][] codes;
+        private final String[][] dictionaries;
+        // 0 for offers without salary
+        private final float[] salaries;
+        private final long builtAt;
+
+        Snapshot(int size, int[][] codes, String[][] dictionaries, float[] salaries, long builtAt) {
+            this.size = size;
+            this.codes = codes;
+            this.dictionaries = dictionaries;
+            this.salaries = salaries;
+            this.builtAt = builtAt;
+        }
+    }
+
+    private final offerRepository offerRepository;
+    private final TransactionTemplate transactionTemplate;
+    private volatile Snapshot snapshot = new Snapshot(0, new int[Dimension.values().length][0],
+            new String[Dimension.values().length][0], new float[0], 0);
+
+    public OfferColumnarSnapshot(offerRepository offerRepository, PlatformTransactionManager transactionManager) {
+        this.offerRepository = offerRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${spring.app.olap.refresh-ms:300000}", initialDelayString = "${spring.app.olap.refresh-ms:300000}")
+    public void refresh() {
+        long start = System.currentTimeMillis();
+        Snapshot built = transactionTemplate.execute(status -> {
+            try (Stream<Object[]> rows = offerRepository.streamColumnarFacts()) {
+                return build(rows);
+            }
+        });
+        snapshot = built;
+        logger.info("Built the columnar snapshot of {} offers in {} ms", built.size, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Offers per combination of the {@code groupBy} dimensions, among those whose dimension values are in
+     * {@code filters} (no entry = no filter) and published from {@code from} to {@code to} (null = unbounded;
+     * a bound excludes offers without publication date). Groups come sorted by decreasing count.
+     */
+    public Result query(List<Dimension> groupBy, Map<Dimension, ? extends Collection<String>> filters,
+                        YearMonth from, YearMonth to) {
+        long start = System.nanoTime();
+        Snapshot current = snapshot;
+
+        // Accepted codes of each filtered dimension; null = all
+        boolean[][] accepted = new boolean[Dimension.values().length][];
+        filters.forEach((dimension, values) -> {
+            String[] dictionary = current.dictionaries[dimension.ordinal()];
+            accepted[dimension.ordinal()] = new boolean[dictionary.length];
+            for (int code = 0; code < dictionary.length; code++) {
+                accepted[dimension.ordinal()][code] = values.contains(dictionary[code]);
+            }
+        });
+        if (from != null || to != null) {
+            String[] months = current.dictionaries[Dimension.MONTH.ordinal()];
+            boolean[] inRange = new boolean[months.length];
+            for (int code = 0; code < months.length; code++) {
+                boolean accept = accepted[Dimension.MONTH.ordinal()] == null || accepted[Dimension.MONTH.ordinal()][code];
+                if (StatisticsService.NON_SPECIFIE.equals(months[code])) {
+                    accept = false;
+                } else {
+                    YearMonth month = YearMonth.parse(months[code]);
+                    accept &= (from == null || !month.isBefore(from)) && (to == null || !month.isAfter(to));
+                }
+                inRange[code] = accept;
+            }
+            accepted[Dimension.MONTH.ordinal()] = inRange;
+        }
+
+        // Group key = mixed-radix number of the group-by codes
+        int dimensions = groupBy.size();
+        int[][] groupCodes = new int[dimensions][];
+        long[] strides = new long[dimensions];
+        long groups = 1;
+        for (int d = dimensions - 1; d >= 0; d--) {
+            groupCodes[d] = current.codes[groupBy.get(d).ordinal()];
+            strides[d] = groups;
+            groups *= Math.max(1, current.dictionaries[groupBy.get(d).ordinal()].length);
+        }
+        List<int[]> filterCodes = new ArrayList<>();
+        List<boolean[]> filterAccepted = new ArrayList<>();
+        for (Dimension dimension : Dimension.values()) {
+            if (accepted[dimension.ordinal()] != null) {
+                filterCodes.add(current.codes[dimension.ordinal()]);
+                filterAccepted.add(accepted[dimension.ordinal()]);
+            }
+        }
+        int[][] filterColumns = filterCodes.toArray(new int[0][]);
+        boolean[][] filterMasks = filterAccepted.toArray(new boolean[0][]);
+
+        Map<Long, double[]> sparse = groups > MAX_DENSE_GROUPS ? new HashMap<>() : null;
+        int[] counts = sparse == null ? new int[(int) groups] : null;
+        int[] salaryCounts = sparse == null ? new int[(int) groups] : null;
+        double[] salarySums = sparse == null ? new double[(int) groups] : null;
+        float[] salaries = current.salaries;
+
+        rows:
+        for (int row = 0; row < current.size; row++) {
+            for (int f = 0; f < filterColumns.length; f++) {
+                if (!filterMasks[f][filterColumns[f][row]]) {
+                    continue rows;
+                }
+            }
+            long key = 0;
+            for (int d = 0; d < dimensions; d++) {
+                key += groupCodes[d][row] * strides[d];
+            }
+            float salary = salaries[row];
+            if (sparse == null) {
+                counts[(int) key]++;
+                if (salary > 0) {
+                    salaryCounts[(int) key]++;
+                    salarySums[(int) key] += salary;
+                }
+            } else {
+                double[] group = sparse.computeIfAbsent(key, k -> new double[3]);
+                group[0]++;
+                if (salary > 0) {
+                    group[1]++;
+                    group[2] += salary;
+                }
+            }
+        }
+
+        List<Group> result = new ArrayList<>();
+        if (sparse == null) {
+            for (int key = 0; key < groups; key++) {
+                if (counts[key] > 0) {
+                    result.add(group(current, groupBy, strides, key, counts[key], salaryCounts[key], salarySums[key]));
+                }
+            }
+        } else {
+            sparse.forEach((key, group) ->
+                    result.add(group(current, groupBy, strides, key, (int) group[0], (int) group[1], group[2])));
+        }
+        result.sort((a, b) -> Integer.compare(b.count(), a.count()));
+        return new Result(result, current.size, current.builtAt, (System.nanoTime() - start) / 1000);
+    }
+
+    private static Group group(Snapshot snapshot, List<Dimension> groupBy, long[] strides, long key,
+                               int count, int salaryCount, double salarySum) {
+        List<String> values = new ArrayList<>(groupBy.size());
+        for (int d = 0; d < groupBy.size(); d++) {
+            String[] dictionary = snapshot.dictionaries[groupBy.get(d).ordinal()];
+            values.add(dictionary[(int) (key / strides[d] % dictionary.length)]);
+        }
+        return new Group(values, count, salaryCount, salaryCount == 0 ? 0 : salarySum / salaryCount);
+    }
+
+    // Rows of offerRepository.streamColumnarFacts: (sector_activity, region_id, location, modality, date_publication, basic_salary)
+    private static Snapshot build(Stream<Object[]> rows) {
+        int columns = Dimension.values().length;
+        List<Map<String, Integer>> dictionaries = new ArrayList<>();
+        for (int c = 0; c < columns; c++) {
+            dictionaries.add(new HashMap<>());
+        }
+        int[][] codes = new int[columns][1024];
+        float[] salaries = new float[1024];
+        int size = 0;
+
+        for (Object[] row : (Iterable<Object[]>) rows::iterator) {
+            if (size == salaries.length) {
+                for (int c = 0; c < columns; c++) {
+                    codes[c] = Arrays.copyOf(codes[c], size * 2);
+                }
+                salaries = Arrays.copyOf(salaries, size * 2);
+            }
+            String sector = (String) row[0];
+            Integer regionId = (Integer) row[1];
+            LocalDate published = (LocalDate) row[4];
+            Float salary = (Float) row[5];
+            String[] values = new String[columns];
+            values[Dimension.SECTOR.ordinal()] = sector != null && !sector.trim().isEmpty() ? sector : StatisticsService.NON_SPECIFIE;
+            // Rows not backfilled yet (see OfferDerivedColumnsBackfill) get their region computed here
+            values[Dimension.REGION.ordinal()] = StatisticsService.MOROCCAN_REGIONS.get(
+                    regionId != null ? regionId : StatisticsService.regionIdOf((String) row[2]));
+            values[Dimension.MODALITY.ordinal()] = row[3] != null ? row[3].toString() : StatisticsService.NON_SPECIFIE;
+            values[Dimension.MONTH.ordinal()] = published != null ? YearMonth.from(published).toString() : StatisticsService.NON_SPECIFIE;
+            for (int c = 0; c < columns; c++) {
+                Map<String, Integer> dictionary = dictionaries.get(c);
+                codes[c][size] = dictionary.computeIfAbsent(values[c], value -> dictionary.size());
+            }
+            salaries[size] = salary != null && salary > 0 ? salary : 0;
+            size++;
+        }
+
+        String[][] decoded = new String[columns][];
+        for (int c = 0; c < columns; c++) {
+            String[] values = new String[dictionaries.get(c).size()];
+            dictionaries.get(c).forEach((value, code) -> values[code] = value);
+            decoded[c] = values;
+        }
+        return new Snapshot(size, codes, decoded, salaries, System.currentTimeMillis());
+    }
+}
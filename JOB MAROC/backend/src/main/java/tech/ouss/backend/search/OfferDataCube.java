@@ -0,0 +1,213 @@
+package tech.ouss.backend.search;
+
+import org.springframework.stereotype.Component;
+import tech.ouss.backend.models.ContractType;
+import tech.ouss.backend.models.offer;
+import tech.ouss.backend.services.StatisticsService;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+/**
+ * Offer counts pre-aggregated over (regions, sector, modality, study levels, contract types, publication month),
+ * kept up to date on every offer write, so that the statistics charts can be restricted to any slice
+ * ("modality split for Casablanca-Settat", "top sectors for Bac+5 offers") by summing cells instead of scanning offers.
+ * An offer may mention several regions, study levels and contract types, so each dimension is dictionary-encoded on
+ * the list of values of an offer and a cell counts the offers sharing the same code in every dimension.
+ * A slice keeps the cells whose lists contain the filter values, and a breakdown counts a cell once per value of its
+ * list: the counting rules of OfferStatisticsCounters, so an unfiltered breakdown gives the same counts.
+ */
+@Component
+public class OfferDataCube implements OfferIndex {
+
+    public enum Dimension {
+        REGION, SECTOR, MODALITY, STUDY_LEVEL, CONTRACT_TYPE, MONTH
+    }
+
+    private static final int DIMENSIONS = Dimension.values().length;
+
+    // Value lists of one dimension <-> dense codes; codes are never reused, the lists of a dimension stay few
+    private static final class Dictionary {
+        private final Map<List<String>, Integer> codes = new HashMap<>();
+        private final List<List<String>> values = new ArrayList<>();
+
+        int code(List<String> value) {
+            return codes.computeIfAbsent(value, key -> {
+                values.add(key);
+                return values.size() - 1;
+            });
+        }
+    }
+
+    private record CellKey(int[] codes) {
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof CellKey key && Arrays.equals(codes, key.codes);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(codes);
+        }
+    }
+
+    private final Dictionary[] dictionaries = newDictionaries();
+    // Cell i has the codes cellCodes[dimension.ordinal()][i] and counts cellCounts[i] offers;
+    // an emptied cell keeps its slot and is reused when its combination comes back
+    private int[][] cellCodes = new int[DIMENSIONS][64];
+    private int[] cellCounts = new int[64];
+    private int cells;
+    private final Map<CellKey, Integer> cellSlots = new HashMap<>();
+    // Cell of each offer, to take it back on update/delete
+    private final Map<Integer, Integer> offerCells = new HashMap<>();
+
+    @Override
+    public synchronized void clear() {
+        System.arraycopy(newDictionaries(), 0, dictionaries, 0, DIMENSIONS);
+        cellCodes = new int[DIMENSIONS][64];
+        cellCounts = new int[64];
+        cells = 0;
+        cellSlots.clear();
+        offerCells.clear();
+    }
+
+    private static Dictionary[] newDictionaries() {
+        Dictionary[] dictionaries = new Dictionary[DIMENSIONS];
+        for (int d = 0; d < DIMENSIONS; d++) {
+            dictionaries[d] = new Dictionary();
+        }
+        return dictionaries;
+    }
+
+    @Override
+    public void add(offer offer) {
+        List<String> contractTypes = new ArrayList<>();
+        if (offer.getContractTypes() != null) {
+            for (ContractType contractType : offer.getContractTypes()) {
+                contractTypes.add(contractType.getTypeName());
+            }
+        }
+        add(offer.getOffer_id(), offer.getLocation(), offer.getSectorActivity(), String.valueOf(offer.getModality()),
+                offer.getStudyLevel(), contractTypes, offer.getDatePublication());
+    }
+
+    /**
+     * Same as {@link #add(offer)} from the raw column values, for cubes built outside the indexer
+     * (see StatisticsService in SQL mode).
+     */
+    public void add(int offerId, String location, String sector, String modality, String studyLevel,
+                    Collection<String> contractTypes, LocalDate published) {
+        List<List<String>> values = new ArrayList<>(DIMENSIONS);
+        values.add(StatisticsService.regionsOf(location));
+        values.add(sector != null && !sector.trim().isEmpty() ? List.of(sector) : List.of());
+        values.add(List.of(modality));
+        values.add(StatisticsService.studyLevelsOf(studyLevel));
+        // Sorted so that the same set of contract types always gets the same code
+        values.add(List.copyOf(new TreeSet<>(contractTypes)));
+        values.add(published != null ? List.of(YearMonth.from(published).toString()) : List.of());
+
+        synchronized (this) {
+            int[] codes = new int[DIMENSIONS];
+            for (int d = 0; d < DIMENSIONS; d++) {
+                codes[d] = dictionaries[d].code(values.get(d));
+            }
+            int cell = cellSlots.computeIfAbsent(new CellKey(codes), key -> newCell(codes));
+            Integer previous = offerCells.put(offerId, cell);
+            if (previous != null) {
+                cellCounts[previous]--;
+            }
+            cellCounts[cell]++;
+        }
+    }
+
+    @Override
+    public synchronized void remove(int offerId) {
+        Integer previous = offerCells.remove(offerId);
+        if (previous != null) {
+            cellCounts[previous]--;
+        }
+    }
+
+    /**
+     * Offers per value of each of the {@code breakdowns}, among the offers that have, in every dimension of
+     * {@code filters}, a value accepted by its predicate.
+     * @return for each breakdown, counts per value (values without offers left out)
+     */
+    public Map<Dimension, Map<String, Long>> count(Collection<Dimension> breakdowns,
+                                                   Map<Dimension, ? extends Predicate<String>> filters) {
+        Map<Dimension, long[]> totals = new EnumMap<>(Dimension.class);
+        Map<Dimension, List<List<String>>> breakdownValues = new EnumMap<>(Dimension.class);
+        synchronized (this) {
+            // Filters are evaluated once per dictionary entry, then looked up by code
+            List<int[]> filterColumns = new ArrayList<>();
+            List<boolean[]> filterMasks = new ArrayList<>();
+            filters.forEach((dimension, filter) -> {
+                List<List<String>> values = dictionaries[dimension.ordinal()].values;
+                boolean[] accepted = new boolean[values.size()];
+                for (int code = 0; code < accepted.length; code++) {
+                    accepted[code] = values.get(code).stream().anyMatch(filter);
+                }
+                filterColumns.add(cellCodes[dimension.ordinal()]);
+                filterMasks.add(accepted);
+            });
+            for (Dimension dimension : breakdowns) {
+                totals.put(dimension, new long[dictionaries[dimension.ordinal()].values.size()]);
+                breakdownValues.put(dimension, List.copyOf(dictionaries[dimension.ordinal()].values));
+            }
+
+            cells:
+            for (int cell = 0; cell < cells; cell++) {
+                int count = cellCounts[cell];
+                if (count == 0) {
+                    continue;
+                }
+                for (int f = 0; f < filterColumns.size(); f++) {
+                    if (!filterMasks.get(f)[filterColumns.get(f)[cell]]) {
+                        continue cells;
+                    }
+                }
+                for (Map.Entry<Dimension, long[]> total : totals.entrySet()) {
+                    total.getValue()[cellCodes[total.getKey().ordinal()][cell]] += count;
+                }
+            }
+        }
+
+        // A list counts once per value it holds
+        Map<Dimension, Map<String, Long>> counts = new EnumMap<>(Dimension.class);
+        totals.forEach((dimension, codeTotals) -> {
+            Map<String, Long> valueCounts = new HashMap<>();
+            List<List<String>> values = breakdownValues.get(dimension);
+            for (int code = 0; code < codeTotals.length; code++) {
+                if (codeTotals[code] > 0) {
+                    long total = codeTotals[code];
+                    values.get(code).forEach(value -> valueCounts.merge(value, total, Long::sum));
+                }
+            }
+            counts.put(dimension, valueCounts);
+        });
+        return counts;
+    }
+
+    // Caller must hold the monitor
+    private int newCell(int[] codes) {
+        if (cells == cellCounts.length) {
+            for (int d = 0; d < DIMENSIONS; d++) {
+                cellCodes[d] = Arrays.copyOf(cellCodes[d], cells * 2);
+            }
+            cellCounts = Arrays.copyOf(cellCounts, cells * 2);
+        }
+        for (int d = 0; d < DIMENSIONS; d++) {
+            cellCodes[d][cells] = codes[d];
+        }
+        return cells++;
+    }
+}
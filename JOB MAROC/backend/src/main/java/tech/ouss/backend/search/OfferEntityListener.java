@@ -0,0 +1,77 @@
+package tech.ouss.backend.search;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tech.ouss.backend.models.offer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JPA lifecycle listener of {@link offer}: reports every insert, update and delete to {@link OfferIndexer},
+ * whichever code path wrote the offer.
+ * Inside a transaction the writes are collected (last write per offer wins) and reported once it has committed,
+ * so the in-memory indexes never show rows that end up rolled back.
+ * Instantiated by Spring through Hibernate's bean container; the indexer is looked up lazily because it
+ * depends on the repository, hence on the EntityManagerFactory this listener belongs to.
+ */
+@Component
+public class OfferEntityListener {
+
+    private final ObjectProvider<OfferIndexer> offerIndexer;
+
+    public OfferEntityListener(ObjectProvider<OfferIndexer> offerIndexer) {
+        this.offerIndexer = offerIndexer;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void offerSaved(offer savedOffer) {
+        schedule(savedOffer.getOffer_id(), savedOffer);
+    }
+
+    @PostRemove
+    public void offerRemoved(offer removedOffer) {
+        schedule(removedOffer.getOffer_id(), null);
+    }
+
+    // offer_id -> saved offer, or null once deleted
+    @SuppressWarnings("unchecked")
+    private void schedule(int offerId, offer savedOffer) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            dispatch(offerId, savedOffer);
+            return;
+        }
+        Map<Integer, offer> pending = (Map<Integer, offer>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Map<Integer, offer> writes = new LinkedHashMap<>();
+            TransactionSynchronizationManager.bindResource(this, writes);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    writes.forEach(OfferEntityListener.this::dispatch);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(OfferEntityListener.this);
+                }
+            });
+            pending = writes;
+        }
+        pending.put(offerId, savedOffer);
+    }
+
+    private void dispatch(int offerId, offer savedOffer) {
+        if (savedOffer != null) {
+            offerIndexer.getObject().offerSaved(savedOffer);
+        } else {
+            offerIndexer.getObject().offerDeleted(offerId);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package tech.ouss.backend.search;
+
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+import tech.ouss.backend.models.ContractType;
+import tech.ouss.backend.models.offer;
+import tech.ouss.backend.services.StatisticsService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Precomputed offer filters: for every value of every filterable attribute, the set of offer ids
+ * having that value, stored as a compressed Roaring bitmap.
+ * A filter combination is resolved with bitmap unions (values of one attribute) and intersections
+ * (across attributes), without querying the offer / offer_contracttypes tables.
+ */
+@Component
+public class OfferFilterIndex implements OfferIndex {
+
+    public static final String MODALITY = "modality";
+    public static final String STATUS = "status";
+    public static final String CONTRACT_TYPE = "contractType";
+    public static final String SECTOR = "sector";
+    public static final String REGION = "region";
+    public static final String STUDY_LEVEL = "studyLevel";
+    public static final String EXPERIENCE = "experience"; // One of StatisticsService.EXPERIENCE_RANGES
+
+    public static final List<String> DIMENSIONS = List.of(MODALITY, STATUS, CONTRACT_TYPE, SECTOR, REGION, STUDY_LEVEL, EXPERIENCE);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // dimension -> value -> ids of the offers having that value
+    private final Map<String, Map<String, RoaringBitmap>> bitmaps = new HashMap<>();
+    private final RoaringBitmap allOffers = new RoaringBitmap();
+
+    public OfferFilterIndex() {
+        DIMENSIONS.forEach(dimension -> bitmaps.put(dimension, new HashMap<>()));
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            bitmaps.values().forEach(Map::clear);
+            allOffers.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void add(offer offer) {
+        Map<String, Set<String>> values = valuesOf(offer);
+        int offerId = offer.getOffer_id();
+
+        lock.writeLock().lock();
+        try {
+            unindex(offerId);
+            for (Map.Entry<String, Set<String>> entry : values.entrySet()) {
+                Map<String, RoaringBitmap> dimension = bitmaps.get(entry.getKey());
+                for (String value : entry.getValue()) {
+                    dimension.computeIfAbsent(value, v -> new RoaringBitmap()).add(offerId);
+                }
+            }
+            allOffers.add(offerId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(int offerId) {
+        lock.writeLock().lock();
+        try {
+            unindex(offerId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Resolves a filter combination: values of the same dimension are OR-ed, dimensions are AND-ed.
+     * Unknown dimensions are ignored; an unknown value matches nothing.
+     * @param criteria dimension -> accepted values. Empty criteria select every offer.
+     * @return a new bitmap of matching offer ids, owned by the caller.
+     */
+    public RoaringBitmap filter(Map<String, ? extends Collection<String>> criteria) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap result = allOffers.clone();
+            for (Map.Entry<String, ? extends Collection<String>> criterion : criteria.entrySet()) {
+                Map<String, RoaringBitmap> dimension = bitmaps.get(criterion.getKey());
+                if (dimension == null || criterion.getValue() == null || criterion.getValue().isEmpty()) {
+                    continue;
+                }
+                result.and(union(dimension, criterion.getValue()));
+                if (result.isEmpty()) {
+                    break;
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts, for every dimension, the offers of the filtered result set per value ("Remote (312)").
+     * Counting is disjunctive: the counts of a dimension ignore that dimension's own selection,
+     * so that the other values stay selectable. Empty values are omitted.
+     * @param criteria the current filters, as for {@link #filter(Map)}.
+     * @param restrictTo an extra set the result is restricted to (e.g. full-text matches), or null.
+     * @return dimension -> list of {"name", "count"} sorted by decreasing count.
+     */
+    public Map<String, List<Map<String, Object>>> facetCounts(Map<String, ? extends Collection<String>> criteria, RoaringBitmap restrictTo) {
+        lock.readLock().lock();
+        try {
+            // Union of the selected values of each filtered dimension, computed once
+            Map<String, RoaringBitmap> selections = new HashMap<>();
+            for (Map.Entry<String, ? extends Collection<String>> criterion : criteria.entrySet()) {
+                Map<String, RoaringBitmap> dimension = bitmaps.get(criterion.getKey());
+                if (dimension != null && criterion.getValue() != null && !criterion.getValue().isEmpty()) {
+                    selections.put(criterion.getKey(), union(dimension, criterion.getValue()));
+                }
+            }
+
+            Map<String, List<Map<String, Object>>> facets = new LinkedHashMap<>();
+            for (String dimensionName : DIMENSIONS) {
+                RoaringBitmap base = restrictTo != null ? RoaringBitmap.and(allOffers, restrictTo) : allOffers.clone();
+                for (Map.Entry<String, RoaringBitmap> selection : selections.entrySet()) {
+                    if (!selection.getKey().equals(dimensionName)) {
+                        base.and(selection.getValue());
+                    }
+                }
+
+                List<Map<String, Object>> counts = new ArrayList<>();
+                for (Map.Entry<String, RoaringBitmap> value : bitmaps.get(dimensionName).entrySet()) {
+                    int count = RoaringBitmap.andCardinality(value.getValue(), base);
+                    if (count > 0) {
+                        Map<String, Object> facet = new HashMap<>();
+                        facet.put("name", value.getKey());
+                        facet.put("count", count);
+                        counts.add(facet);
+                    }
+                }
+                counts.sort(Comparator.comparingInt((Map<String, Object> f) -> (Integer) f.get("count")).reversed());
+                facets.put(dimensionName, counts);
+            }
+            return facets;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static RoaringBitmap union(Map<String, RoaringBitmap> dimension, Collection<String> values) {
+        List<RoaringBitmap> selected = new ArrayList<>(values.size());
+        for (String value : values) {
+            RoaringBitmap bitmap = dimension.get(value);
+            if (bitmap != null) {
+                selected.add(bitmap);
+            }
+        }
+        return selected.isEmpty() ? new RoaringBitmap() : FastAggregation.or(selected.toArray(new RoaringBitmap[0]));
+    }
+
+    // Caller must hold the write lock
+    private void unindex(int offerId) {
+        if (!allOffers.contains(offerId)) {
+            return;
+        }
+        for (Map<String, RoaringBitmap> dimension : bitmaps.values()) {
+            dimension.values().removeIf(bitmap -> {
+                bitmap.remove(offerId);
+                return bitmap.isEmpty();
+            });
+        }
+        allOffers.remove(offerId);
+    }
+
+    static Map<String, Set<String>> valuesOf(offer offer) {
+        Map<String, Set<String>> values = new HashMap<>();
+        if (offer.getModality() != null) {
+            values.put(MODALITY, Set.of(offer.getModality().name()));
+        }
+        if (offer.getStatus() != null) {
+            values.put(STATUS, Set.of(offer.getStatus().name()));
+        }
+        if (offer.getSectorActivity() != null && !offer.getSectorActivity().trim().isEmpty()) {
+            values.put(SECTOR, Set.of(offer.getSectorActivity().trim()));
+        }
+        Set<String> contractTypes = new LinkedHashSet<>();
+        if (offer.getContractTypes() != null) {
+            for (ContractType contractType : offer.getContractTypes()) {
+                contractTypes.add(contractType.getTypeName());
+            }
+        }
+        values.put(CONTRACT_TYPE, contractTypes);
+        values.put(REGION, new LinkedHashSet<>(StatisticsService.regionsOf(offer.getLocation())));
+        values.put(STUDY_LEVEL, new LinkedHashSet<>(StatisticsService.studyLevelsOf(offer.getStudyLevel())));
+        // The derived columns, or the raw experience of a row the backfill has not reached yet
+        StatisticsService.ExperienceRange experience = offer.getExperienceMinYears() != null
+                ? new StatisticsService.ExperienceRange(offer.getExperienceMinYears(), offer.getExperienceMaxYears())
+                : StatisticsService.experienceRangeOf(offer.getExperience());
+        values.put(EXPERIENCE, new LinkedHashSet<>(
+                StatisticsService.experienceRangesOf(experience.minYears(), experience.maxYears())));
+        return values;
+    }
+}
@@ -0,0 +1,23 @@
+package tech.ouss.backend.search;
+
+import tech.ouss.backend.models.offer;
+
+/**
+ * An in-memory structure derived from the offer table.
+ * Implementations are registered as Spring beans and fed by {@link OfferIndexer}:
+ * once with the whole table at startup, then incrementally on every offer write.
+ */
+public interface OfferIndex {
+
+    /** Drops everything, before a full rebuild. */
+    void clear();
+
+    /**
+     * Adds or replaces the given offer. Called for creations and updates alike,
+     * so implementations must first forget what they previously held for the same offer_id.
+     */
+    void add(offer offer);
+
+    /** Forgets the offer with the given id, if present. */
+    void remove(int offerId);
+}
@@ -0,0 +1,66 @@
+package tech.ouss.backend.search;
+
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import tech.ouss.backend.Repository.offerRepository;
+import tech.ouss.backend.models.offer;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Keeps every {@link OfferIndex} bean in sync with the offer table.
+ * The table is read once at startup through a forward-only cursor and fed to all indexes in the same pass;
+ * afterwards {@link OfferEntityListener} reports each committed write here.
+ */
+@Component
+public class OfferIndexer {
+    private static final Logger logger = LoggerFactory.getLogger(OfferIndexer.class);
+
+    private final offerRepository offerRepository;
+    private final EntityManager entityManager;
+    private final List<OfferIndex> indexes;
+
+    public OfferIndexer(offerRepository offerRepository, EntityManager entityManager, List<OfferIndex> indexes) {
+        this.offerRepository = offerRepository;
+        this.entityManager = entityManager;
+        this.indexes = indexes;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuildAll() {
+        long start = System.currentTimeMillis();
+        indexes.forEach(OfferIndex::clear);
+
+        int count = 0;
+        try (Stream<offer> offers = offerRepository.streamAll()) {
+            for (offer o : (Iterable<offer>) offers::iterator) {
+                for (OfferIndex index : indexes) {
+                    index.add(o);
+                }
+                if (++count % tech.ouss.backend.Repository.offerRepository.OFFER_STREAM_FETCH_SIZE == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        logger.info("Indexed {} offers into {} offer indexes in {} ms", count, indexes.size(), System.currentTimeMillis() - start);
+    }
+
+    public void offerSaved(offer savedOffer) {
+        for (OfferIndex index : indexes) {
+            index.add(savedOffer);
+        }
+    }
+
+    public void offerDeleted(int offerId) {
+        for (OfferIndex index : indexes) {
+            index.remove(offerId);
+        }
+    }
+}
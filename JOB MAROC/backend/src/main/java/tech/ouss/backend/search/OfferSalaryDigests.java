@@ -0,0 +1,244 @@
+package tech.ouss.backend.search;
+
+import com.tdunning.math.stats.TDigest;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import tech.ouss.backend.Repository.offerRepository;
+import tech.ouss.backend.models.ContractType;
+import tech.ouss.backend.models.offer;
+import tech.ouss.backend.services.StatisticsService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Salary distribution (basic_salary) of the offers, as t-digest sketches kept up to date on every offer write.
+ * Offers are spread over cells (sector, primary region), and over cells (contract type, sector, region) for the
+ * contract type breakdowns; a query merges the sketches of the cells it covers, so quantiles are never computed
+ * by sorting salaries. An offer lands in one cell of each family per contract type it has, hence a merge never
+ * counts an offer twice.
+ * A t-digest cannot forget a value: a cell losing an offer (update or delete) is marked stale, and its sketch is
+ * rebuilt on its next read from the salaries of its offers, read back from the offer table by id. So the memory
+ * per cell is a sketch of bounded size plus the ids of its offers in a compressed bitmap, never the salaries, and
+ * a read after writes costs one query per cell they touched.
+ * Offers without a positive salary are left out; blank sectors and offers without contract type are filed
+ * under StatisticsService.NON_SPECIFIE.
+ */
+@Component
+public class OfferSalaryDigests implements OfferIndex {
+
+    public static final String BY_SECTOR = "sector";
+    public static final String BY_REGION = "region";
+    public static final String BY_CONTRACT_TYPE = "contractType";
+    // Accuracy/size trade-off of the sketches: about 2 * COMPRESSION centroids per cell at most
+    public static final double COMPRESSION = 100;
+
+    /** Salary quartiles and 90th percentile of a group of offers. */
+    public record Quantiles(long count, double p25, double median, double p75, double p90) {
+    }
+
+    // contractType is null in the cells of the (sector, region) family
+    private record Cell(String sector, String region, String contractType) {
+        String get(String dimension) {
+            return switch (dimension) {
+                case BY_SECTOR -> sector;
+                case BY_REGION -> region;
+                default -> contractType;
+            };
+        }
+    }
+
+    private static final class Sketch {
+        private final RoaringBitmap offers = new RoaringBitmap();
+        private TDigest digest = TDigest.createMergingDigest(COMPRESSION);
+        private boolean stale;
+        // Incremented on every change, so that a rebuild made outside the monitor is only kept if still current
+        private long version;
+    }
+
+    private static final int SALARY_QUERY_SIZE = 1000;
+    // Attempts at rebuilding the stale cells of a query outside the monitor before rebuilding them holding it
+    private static final int MAX_REBUILDS = 3;
+
+    private final offerRepository offerRepository;
+    private final Map<Cell, Sketch> cells = new HashMap<>();
+    private final Map<Cell, Sketch> contractTypeCells = new HashMap<>();
+    // Cells each offer was added to, to take it back on update/delete
+    private final Map<Integer, List<Cell>> contributions = new HashMap<>();
+
+    @Autowired
+    public OfferSalaryDigests(offerRepository offerRepository) {
+        this.offerRepository = offerRepository;
+    }
+
+    /** Sketches that are only ever added to (see StatisticsService in SQL mode), hence never rebuilt. */
+    public OfferSalaryDigests() {
+        this(null);
+    }
+
+    @Override
+    public synchronized void clear() {
+        cells.clear();
+        contractTypeCells.clear();
+        contributions.clear();
+    }
+
+    @Override
+    public void add(offer offer) {
+        List<String> contractTypes = new ArrayList<>();
+        if (offer.getContractTypes() != null) {
+            for (ContractType contractType : offer.getContractTypes()) {
+                contractTypes.add(contractType.getTypeName());
+            }
+        }
+        add(offer.getOffer_id(), offer.getBasicSalary(), offer.getSectorActivity(),
+                offer.getRegionId() != null ? offer.getRegionId() : StatisticsService.regionIdOf(offer.getLocation()),
+                contractTypes);
+    }
+
+    /**
+     * Same as {@link #add(offer)} from the column values, for sketches built outside the indexer
+     * (see StatisticsService in SQL mode).
+     * @param regionId the primary region, as in offer.regionId.
+     */
+    public void add(int offerId, Float salary, String sector, int regionId, Collection<String> contractTypes) {
+        if (salary == null || !(salary > 0)) {
+            remove(offerId);
+            return;
+        }
+        String sectorName = sector != null && !sector.trim().isEmpty() ? sector : StatisticsService.NON_SPECIFIE;
+        String region = StatisticsService.MOROCCAN_REGIONS.get(regionId);
+        List<Cell> offerCells = new ArrayList<>();
+        offerCells.add(new Cell(sectorName, region, null));
+        if (contractTypes.isEmpty()) {
+            offerCells.add(new Cell(sectorName, region, StatisticsService.NON_SPECIFIE));
+        }
+        for (String contractType : contractTypes) {
+            offerCells.add(new Cell(sectorName, region, contractType));
+        }
+
+        synchronized (this) {
+            takeBack(offerId, contributions.put(offerId, offerCells));
+            for (Cell cell : offerCells) {
+                Sketch sketch = family(cell).computeIfAbsent(cell, key -> new Sketch());
+                sketch.offers.add(offerId);
+                sketch.version++;
+                if (!sketch.stale) {
+                    sketch.digest.add(salary);
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void remove(int offerId) {
+        takeBack(offerId, contributions.remove(offerId));
+    }
+
+    /**
+     * Salary quantiles of the offers matching the filters (null = no filter), per value of {@code groupBy}
+     * (one of the BY_ constants), or under the null key when {@code groupBy} is null.
+     */
+    public Map<String, Quantiles> getQuantiles(String groupBy, String sector, String region, String contractType) {
+        boolean byContractType = BY_CONTRACT_TYPE.equals(groupBy) || contractType != null;
+        Map<String, TDigest> groups = null;
+        for (int attempt = 0; groups == null; attempt++) {
+            Map<Sketch, int[]> stale = new HashMap<>();
+            Map<Sketch, Long> versions = new HashMap<>();
+            synchronized (this) {
+                Map<String, List<Sketch>> matched = new HashMap<>();
+                (byContractType ? contractTypeCells : cells).forEach((cell, sketch) -> {
+                    if ((sector == null || sector.equals(cell.sector()))
+                            && (region == null || region.equals(cell.region()))
+                            && (contractType == null || contractType.equals(cell.contractType()))) {
+                        if (sketch.stale) {
+                            stale.put(sketch, sketch.offers.toArray());
+                            versions.put(sketch, sketch.version);
+                        }
+                        matched.computeIfAbsent(groupBy == null ? null : cell.get(groupBy), key -> new ArrayList<>())
+                                .add(sketch);
+                    }
+                });
+                if (stale.isEmpty() || attempt == MAX_REBUILDS) {
+                    // Writers outpaced every rebuild made outside the monitor: rebuild holding it
+                    stale.forEach((sketch, offerIds) -> install(sketch, salaryDigest(offerIds)));
+                    groups = merge(matched);
+                }
+            }
+            if (groups == null) {
+                // Reads the salaries of the stale cells without holding the monitor during the queries;
+                // a cell changed in the meantime stays stale
+                stale.forEach((sketch, offerIds) -> {
+                    TDigest digest = salaryDigest(offerIds);
+                    synchronized (this) {
+                        if (sketch.version == versions.get(sketch)) {
+                            install(sketch, digest);
+                        }
+                    }
+                });
+            }
+        }
+
+        Map<String, Quantiles> quantiles = new HashMap<>();
+        groups.forEach((group, merged) -> quantiles.put(group, new Quantiles(merged.size(), merged.quantile(0.25),
+                merged.quantile(0.5), merged.quantile(0.75), merged.quantile(0.9))));
+        return quantiles;
+    }
+
+    // Caller must hold the monitor: merging compresses the digests of the cells. The merged digests are private.
+    private static Map<String, TDigest> merge(Map<String, List<Sketch>> groups) {
+        Map<String, TDigest> merged = new HashMap<>();
+        groups.forEach((group, sketches) -> {
+            TDigest digest = TDigest.createMergingDigest(COMPRESSION);
+            digest.add(sketches.stream().map(sketch -> sketch.digest).toList());
+            merged.put(group, digest);
+        });
+        return merged;
+    }
+
+    private static void install(Sketch sketch, TDigest digest) {
+        sketch.digest = digest;
+        sketch.stale = false;
+    }
+
+    private TDigest salaryDigest(int[] offerIds) {
+        if (offerRepository == null) {
+            throw new IllegalStateException("Sketches without a repository cannot be rebuilt");
+        }
+        TDigest digest = TDigest.createMergingDigest(COMPRESSION);
+        for (int from = 0; from < offerIds.length; from += SALARY_QUERY_SIZE) {
+            List<Integer> ids = new ArrayList<>(SALARY_QUERY_SIZE);
+            for (int i = from; i < Math.min(from + SALARY_QUERY_SIZE, offerIds.length); i++) {
+                ids.add(offerIds[i]);
+            }
+            offerRepository.findSalariesByIds(ids).forEach(digest::add);
+        }
+        return digest;
+    }
+
+    // Caller must hold the monitor
+    private void takeBack(int offerId, List<Cell> previousCells) {
+        if (previousCells == null) {
+            return;
+        }
+        for (Cell cell : previousCells) {
+            Map<Cell, Sketch> family = family(cell);
+            Sketch sketch = family.get(cell);
+            sketch.offers.remove(offerId);
+            sketch.stale = true;
+            sketch.version++;
+            // Drop cells falling back to empty, so that the maps only hold what exists
+            if (sketch.offers.isEmpty()) {
+                family.remove(cell);
+            }
+        }
+    }
+
+    private Map<Cell, Sketch> family(Cell cell) {
+        return cell.contractType() == null ? cells : contractTypeCells;
+    }
+}
@@ -0,0 +1,327 @@
+package tech.ouss.backend.search;
+
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+import tech.ouss.backend.models.offer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over offer title, description, skills and company name, ranked with BM25.
+ * Posting lists are primitive int arrays of offer_id / term frequency, and document lengths are
+ * stored in an int array indexed by offer_id, so a query never touches the database or boxes ids.
+ * A query accumulates scores in a table sized by its postings, not by the largest offer_id.
+ * Terms from the title, company and skills count more than terms from the description.
+ * Fuzzy queries also match indexed terms within a small edit distance of each query term
+ * ("casabanca", "devloppeur"), found through a {@link SymSpellDictionary} of the vocabulary and scored lower.
+ */
+@Component
+public class OfferSearchIndex implements OfferIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    private static final int TITLE_WEIGHT = 3;
+    private static final int COMPANY_WEIGHT = 2;
+    private static final int SKILLS_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private static final int MAX_EDIT_DISTANCE = 2;
+    private static final int FUZZY_PREFIX_LENGTH = 7;
+    // Closest corrections kept per query term, and their score weight by edit distance
+    private static final int MAX_EXPANSIONS = 5;
+    private static final float[] DISTANCE_WEIGHTS = {1f, 0.5f, 0.25f};
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> postings = new HashMap<>();
+    // Distinct terms of each indexed offer, needed to unindex it on update/delete
+    private final Map<Integer, String[]> offerTerms = new HashMap<>();
+    private int[] offerLengths = new int[1024];
+    private long totalLength;
+    // Every term ever indexed since the last clear; terms without postings are skipped at query time
+    private SymSpellDictionary vocabulary = new SymSpellDictionary(MAX_EDIT_DISTANCE, FUZZY_PREFIX_LENGTH);
+
+    public record SearchHit(int offerId, float score) {
+    }
+
+    public record SearchResult(int total, List<SearchHit> hits) {
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            offerTerms.clear();
+            offerLengths = new int[1024];
+            totalLength = 0;
+            vocabulary = new SymSpellDictionary(MAX_EDIT_DISTANCE, FUZZY_PREFIX_LENGTH);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void add(offer offer) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = countTerms(frequencies, offer.getTitle(), TITLE_WEIGHT)
+                + countTerms(frequencies, offer.getCompanyName(), COMPANY_WEIGHT)
+                + countTerms(frequencies, offer.getSkills(), SKILLS_WEIGHT)
+                + countTerms(frequencies, offer.getDescription(), DESCRIPTION_WEIGHT);
+        int offerId = offer.getOffer_id();
+
+        lock.writeLock().lock();
+        try {
+            unindex(offerId);
+            if (frequencies.isEmpty()) {
+                return;
+            }
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                Postings termPostings = postings.get(entry.getKey());
+                if (termPostings == null) {
+                    termPostings = new Postings();
+                    postings.put(entry.getKey(), termPostings);
+                    vocabulary.add(entry.getKey());
+                }
+                termPostings.add(offerId, entry.getValue());
+            }
+            offerTerms.put(offerId, frequencies.keySet().toArray(new String[0]));
+            if (offerId >= offerLengths.length) {
+                offerLengths = Arrays.copyOf(offerLengths, Math.max(offerId + 1, offerLengths.length * 2));
+            }
+            offerLengths[offerId] = length;
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(int offerId) {
+        lock.writeLock().lock();
+        try {
+            unindex(offerId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ranks the offers matching any of the query terms.
+     * @param query free text, analysed like the indexed fields.
+     * @param limit maximum number of hits returned.
+     * @param fuzzy also match terms within a small edit distance of the query terms.
+     * @return the total number of matching offers and the best {@code limit} hits, best first.
+     */
+    public SearchResult search(String query, int limit, boolean fuzzy) {
+        Set<String> queryTerms = new LinkedHashSet<>(OfferTextAnalyzer.tokenize(query));
+        if (queryTerms.isEmpty() || limit <= 0) {
+            return new SearchResult(0, List.of());
+        }
+
+        lock.readLock().lock();
+        try {
+            int documentCount = offerTerms.size();
+            if (documentCount == 0) {
+                return new SearchResult(0, List.of());
+            }
+            float averageLength = (float) totalLength / documentCount;
+            List<WeightedPostings> expansions = expand(queryTerms, fuzzy);
+            long postingCount = 0;
+            for (WeightedPostings expansion : expansions) {
+                postingCount += expansion.postings().size;
+            }
+            Scores scores = new Scores((int) Math.min(postingCount, documentCount));
+
+            for (WeightedPostings expansion : expansions) {
+                Postings termPostings = expansion.postings();
+                float idf = expansion.weight()
+                        * (float) Math.log(1 + (documentCount - termPostings.size + 0.5) / (termPostings.size + 0.5));
+                for (int i = 0; i < termPostings.size; i++) {
+                    int offerId = termPostings.offerIds[i];
+                    int frequency = termPostings.frequencies[i];
+                    float norm = K1 * (1 - B + B * offerLengths[offerId] / averageLength);
+                    scores.add(offerId, idf * frequency * (K1 + 1) / (frequency + norm));
+                }
+            }
+
+            return new SearchResult(scores.size, topHits(scores, limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of all offers matching at least one query term, unranked.
+     * Used to combine a text query with the attribute filters.
+     * @param fuzzy as for {@link #search(String, int, boolean)}.
+     */
+    public RoaringBitmap matchingOffers(String query, boolean fuzzy) {
+        RoaringBitmap matching = new RoaringBitmap();
+        Set<String> queryTerms = new LinkedHashSet<>(OfferTextAnalyzer.tokenize(query));
+        lock.readLock().lock();
+        try {
+            for (WeightedPostings expansion : expand(queryTerms, fuzzy)) {
+                matching.addN(expansion.postings().offerIds, 0, expansion.postings().size);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return matching;
+    }
+
+    // Caller must hold the read lock. Each indexed term appears once, with its best weight.
+    private List<WeightedPostings> expand(Set<String> queryTerms, boolean fuzzy) {
+        Map<String, WeightedPostings> expansions = new HashMap<>();
+        for (String queryTerm : queryTerms) {
+            Postings exact = postings.get(queryTerm);
+            if (exact != null) {
+                expansions.put(queryTerm, new WeightedPostings(exact, DISTANCE_WEIGHTS[0]));
+            }
+            if (!fuzzy) {
+                continue;
+            }
+            int kept = 0;
+            for (SymSpellDictionary.Correction correction : vocabulary.lookup(queryTerm, maxEditDistance(queryTerm))) {
+                Postings termPostings = postings.get(correction.term());
+                if (correction.distance() == 0 || termPostings == null) {
+                    continue;
+                }
+                float weight = DISTANCE_WEIGHTS[correction.distance()];
+                WeightedPostings previous = expansions.get(correction.term());
+                if (previous == null || previous.weight() < weight) {
+                    expansions.put(correction.term(), new WeightedPostings(termPostings, weight));
+                }
+                if (++kept == MAX_EXPANSIONS) {
+                    break;
+                }
+            }
+        }
+        return new ArrayList<>(expansions.values());
+    }
+
+    // Short terms are too ambiguous to correct: "rh" is one edit away from "ru", "ri", "pr"...
+    private static int maxEditDistance(String term) {
+        if (term.length() <= 3) {
+            return 0;
+        }
+        return term.length() <= 5 ? 1 : MAX_EDIT_DISTANCE;
+    }
+
+    private static List<SearchHit> topHits(Scores scores, int limit) {
+        // Min-heap on score; on ties the most recent (highest) offer_id wins
+        PriorityQueue<SearchHit> best = new PriorityQueue<>(limit + 1, (a, b) -> a.score() != b.score()
+                ? Float.compare(a.score(), b.score())
+                : Integer.compare(a.offerId(), b.offerId()));
+        for (int i = 0; i < scores.size; i++) {
+            int slot = scores.slots[i];
+            best.add(new SearchHit(scores.offerIds[slot] - 1, scores.values[slot]));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<SearchHit> hits = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            hits.add(best.poll());
+        }
+        Collections.reverse(hits);
+        return hits;
+    }
+
+    private static int countTerms(Map<String, Integer> frequencies, String text, int weight) {
+        List<String> tokens = OfferTextAnalyzer.tokenize(text);
+        for (String token : tokens) {
+            frequencies.merge(token, weight, Integer::sum);
+        }
+        return tokens.size() * weight;
+    }
+
+    // Caller must hold the write lock
+    private void unindex(int offerId) {
+        String[] terms = offerTerms.remove(offerId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Postings termPostings = postings.get(term);
+            if (termPostings != null && termPostings.remove(offerId) && termPostings.size == 0) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= offerLengths[offerId];
+        offerLengths[offerId] = 0;
+    }
+
+    private record WeightedPostings(Postings postings, float weight) {
+    }
+
+    /** BM25 scores of the offers matched by one query: an open-addressing table of offer_id to score. */
+    private static final class Scores {
+        private final int[] offerIds; // offer_id + 1, 0 for a free slot
+        private final float[] values;
+        private final int[] slots; // Used slots, in first match order
+        private final int mask;
+        private int size;
+
+        // At most maxMatches distinct offers; the table is kept at most half full
+        Scores(int maxMatches) {
+            int capacity = Integer.highestOneBit(Math.max(2 * maxMatches - 1, 1)) << 1;
+            offerIds = new int[capacity];
+            values = new float[capacity];
+            slots = new int[maxMatches];
+            mask = capacity - 1;
+        }
+
+        void add(int offerId, float score) {
+            int hash = offerId * 0x9E3779B9;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (offerIds[slot] != 0 && offerIds[slot] != offerId + 1) {
+                slot = (slot + 1) & mask;
+            }
+            if (offerIds[slot] == 0) {
+                offerIds[slot] = offerId + 1;
+                slots[size++] = slot;
+            }
+            values[slot] += score;
+        }
+    }
+
+    /** Unordered posting list of one term: parallel arrays of offer_id and weighted term frequency. */
+    private static final class Postings {
+        private int[] offerIds = new int[4];
+        private int[] frequencies = new int[4];
+        private int size;
+
+        void add(int offerId, int frequency) {
+            if (size == offerIds.length) {
+                offerIds = Arrays.copyOf(offerIds, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            offerIds[size] = offerId;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+        boolean remove(int offerId) {
+            for (int i = 0; i < size; i++) {
+                if (offerIds[i] == offerId) {
+                    size--;
+                    offerIds[i] = offerIds[size];
+                    frequencies[i] = frequencies[size];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package tech.ouss.backend.search;
+
+import org.springframework.stereotype.Component;
+import tech.ouss.backend.models.offer;
+import tech.ouss.backend.services.StatisticsService;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Offer counts per sector, modality, study level and region, kept up to date on every offer write
+ * so that the statistics charts are answered in O(categories) instead of scanning the offer table.
+ * Counting rules are the ones of StatisticsService: an offer counts once per normalised study level
+ * and region it mentions, and sectors are counted on their raw value.
+ */
+@Component
+public class OfferStatisticsCounters implements OfferIndex {
+
+    private final Map<String, Long> sectors = new HashMap<>();
+    private final Map<String, Long> modalities = new HashMap<>();
+    private final Map<String, Long> studyLevels = new HashMap<>();
+    private final Map<String, Long> regions = new HashMap<>();
+    // What each offer was counted under, to take it back on update/delete
+    private final Map<Integer, Contribution> contributions = new HashMap<>();
+
+    private record Contribution(String sector, String modality, List<String> studyLevels, List<String> regions) {
+    }
+
+    @Override
+    public synchronized void clear() {
+        sectors.clear();
+        modalities.clear();
+        studyLevels.clear();
+        regions.clear();
+        contributions.clear();
+    }
+
+    @Override
+    public void add(offer offer) {
+        String sector = offer.getSectorActivity() != null && !offer.getSectorActivity().trim().isEmpty()
+                ? offer.getSectorActivity() : null;
+        Contribution contribution = new Contribution(sector, String.valueOf(offer.getModality()),
+                StatisticsService.studyLevelsOf(offer.getStudyLevel()), StatisticsService.regionsOf(offer.getLocation()));
+
+        synchronized (this) {
+            Contribution previous = contributions.put(offer.getOffer_id(), contribution);
+            if (previous != null) {
+                apply(previous, -1);
+            }
+            apply(contribution, 1);
+        }
+    }
+
+    @Override
+    public synchronized void remove(int offerId) {
+        Contribution previous = contributions.remove(offerId);
+        if (previous != null) {
+            apply(previous, -1);
+        }
+    }
+
+    /** Offers per sector_activity, blank sectors excluded. */
+    public synchronized Map<String, Long> getSectorCounts() {
+        return new HashMap<>(sectors);
+    }
+
+    /** Offers per modality name ("null" for offers without modality). */
+    public synchronized Map<String, Long> getModalityCounts() {
+        return new HashMap<>(modalities);
+    }
+
+    /** Mentions per normalised study level (see StatisticsService.studyLevelsOf). */
+    public synchronized Map<String, Long> getStudyLevelCounts() {
+        return new HashMap<>(studyLevels);
+    }
+
+    /** Mentions per region (see StatisticsService.regionsOf). */
+    public synchronized Map<String, Long> getRegionCounts() {
+        return new HashMap<>(regions);
+    }
+
+    // Caller must hold the monitor
+    private void apply(Contribution contribution, int delta) {
+        if (contribution.sector() != null) {
+            count(sectors, contribution.sector(), delta);
+        }
+        count(modalities, contribution.modality(), delta);
+        contribution.studyLevels().forEach(level -> count(studyLevels, level, delta));
+        contribution.regions().forEach(region -> count(regions, region, delta));
+    }
+
+    private static void count(Map<String, Long> counts, String key, int delta) {
+        // Drop categories falling back to zero, so that the maps only hold what exists
+        counts.merge(key, (long) delta, (current, change) -> current + change == 0 ? null : current + change);
+    }
+}
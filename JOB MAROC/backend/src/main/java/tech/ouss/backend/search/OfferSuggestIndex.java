@@ -0,0 +1,151 @@
+package tech.ouss.backend.search;
+
+import org.springframework.stereotype.Component;
+import tech.ouss.backend.models.offer;
+import tech.ouss.backend.services.StatisticsService;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Type-ahead suggestions for the search box, per field: offer titles, company names, locations and skills
+ * (the " - " separated parts of offer.skills). Each field is a {@link PrefixTrie} of accent-insensitive keys
+ * counted by number of offers, so suggestions come back most frequent first.
+ */
+@Component
+public class OfferSuggestIndex implements OfferIndex {
+
+    public enum Field {
+        TITLE("title"), COMPANY("company"), LOCATION("location"), SKILL("skill");
+
+        private final String param;
+
+        Field(String param) {
+            this.param = param;
+        }
+
+        public String getParam() {
+            return param;
+        }
+
+        public static Field fromParam(String param) {
+            for (Field field : values()) {
+                if (field.param.equalsIgnoreCase(param)) {
+                    return field;
+                }
+            }
+            throw new IllegalArgumentException("Unknown suggestion field: " + param);
+        }
+    }
+
+    private static final int TOP_K = 10;
+
+    private final Map<Field, PrefixTrie> tries = new EnumMap<>(Field.class);
+    // Keys each offer contributed, per field, to decrement them on update/delete
+    private final Map<Integer, Map<Field, Set<String>>> offerKeys = new HashMap<>();
+
+    public OfferSuggestIndex() {
+        for (Field field : Field.values()) {
+            tries.put(field, new PrefixTrie(TOP_K));
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        tries.values().forEach(PrefixTrie::clear);
+        offerKeys.clear();
+    }
+
+    @Override
+    public void add(offer offer) {
+        Map<Field, Map<String, String>> values = new EnumMap<>(Field.class);
+        values.put(Field.TITLE, keysOf(List.of(nullToEmpty(offer.getTitle()))));
+        values.put(Field.COMPANY, keysOf(List.of(nullToEmpty(offer.getCompanyName()))));
+        values.put(Field.LOCATION, keysOf(List.of(nullToEmpty(offer.getLocation()))));
+        values.put(Field.SKILL, keysOf(List.of(nullToEmpty(offer.getSkills()).split("\\s+-\\s+"))));
+
+        synchronized (this) {
+            unindex(offer.getOffer_id());
+            Map<Field, Set<String>> contributed = new EnumMap<>(Field.class);
+            for (Map.Entry<Field, Map<String, String>> field : values.entrySet()) {
+                PrefixTrie trie = tries.get(field.getKey());
+                field.getValue().forEach(trie::increment);
+                contributed.put(field.getKey(), field.getValue().keySet());
+            }
+            offerKeys.put(offer.getOffer_id(), contributed);
+        }
+    }
+
+    @Override
+    public synchronized void remove(int offerId) {
+        unindex(offerId);
+    }
+
+    /**
+     * Suggestions for what the user has typed so far.
+     * @param prefix the typed text; accents and case are ignored.
+     * @param field restricts suggestions to one field, or null for all fields merged by frequency.
+     * @param limit maximum number of suggestions, at most TOP_K.
+     * @return list of {"text", "field", "count"}, most frequent first.
+     */
+    public List<Map<String, Object>> suggest(String prefix, Field field, int limit) {
+        limit = Math.min(limit, TOP_K);
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        List<Map<String, Object>> suggestions = new ArrayList<>();
+        synchronized (this) {
+            for (Field candidate : field != null ? List.of(field) : List.of(Field.values())) {
+                for (PrefixTrie.Suggestion suggestion : tries.get(candidate).suggest(key, limit)) {
+                    Map<String, Object> item = new LinkedHashMap<>();
+                    item.put("text", suggestion.text());
+                    item.put("field", candidate.getParam());
+                    item.put("count", suggestion.count());
+                    suggestions.add(item);
+                }
+            }
+        }
+        suggestions.sort(Comparator.comparingInt((Map<String, Object> s) -> (Integer) s.get("count")).reversed());
+        return suggestions.size() > limit ? suggestions.subList(0, limit) : suggestions;
+    }
+
+    // Caller must hold the monitor
+    private void unindex(int offerId) {
+        Map<Field, Set<String>> contributed = offerKeys.remove(offerId);
+        if (contributed != null) {
+            contributed.forEach((field, keys) -> keys.forEach(tries.get(field)::decrement));
+        }
+    }
+
+    // normalised key -> display text, one entry per distinct key
+    private static Map<String, String> keysOf(List<String> texts) {
+        Map<String, String> keys = new LinkedHashMap<>();
+        for (String text : texts) {
+            String display = text.trim().replaceAll("\\s+", " ");
+            String key = normalize(display);
+            if (!key.isEmpty()) {
+                keys.putIfAbsent(key, display);
+            }
+        }
+        return keys;
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return StatisticsService.removeAccents(text).toLowerCase(Locale.ROOT).trim().replaceAll("\\s+", " ");
+    }
+
+    private static String nullToEmpty(String text) {
+        return text == null ? "" : text;
+    }
+}
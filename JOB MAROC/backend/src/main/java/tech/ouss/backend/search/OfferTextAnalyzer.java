@@ -0,0 +1,56 @@
+package tech.ouss.backend.search;
+
+import tech.ouss.backend.services.StatisticsService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Turns offer text and search queries into index terms:
+ * accents are folded (same folding as the statistics), text is lower-cased
+ * and split on anything that is not a letter, a digit, '+' or '#' (so "bac+5", "c++" and "c#" survive).
+ */
+public final class OfferTextAnalyzer {
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            // Français
+            "de", "du", "des", "la", "le", "les", "un", "une", "et", "ou", "en", "au", "aux", "a",
+            "pour", "par", "sur", "dans", "avec", "vos", "votre", "nos", "notre", "est", "sont", "qui", "que",
+            // English
+            "the", "and", "or", "of", "for", "to", "in", "on", "with", "an", "is", "are", "your", "our"
+    );
+
+    private OfferTextAnalyzer() {
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return tokens;
+        }
+        String folded = StatisticsService.removeAccents(text).toLowerCase(Locale.ROOT);
+
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            char c = i < folded.length() ? folded.charAt(i) : ' ';
+            boolean tokenChar = Character.isLetterOrDigit(c) || ((c == '+' || c == '#') && start >= 0);
+            if (tokenChar) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                addToken(tokens, folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static void addToken(List<String> tokens, String token) {
+        if (token.length() >= 2 && !STOP_WORDS.contains(token)) {
+            tokens.add(token);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package tech.ouss.backend.search;
+
+import org.springframework.stereotype.Component;
+import tech.ouss.backend.models.offer;
+import tech.ouss.backend.services.StatisticsService;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Offers published per day and per month (date_publication), in total and broken down by sector and region,
+ * kept up to date on every offer write. Each bucket is a slot of a per-year array, so a count is read in
+ * constant time and a range costs one read per day or month, whatever the size of the offer table.
+ * Sectors and regions are counted as in {@link OfferStatisticsCounters}; offers without a publication date
+ * are left out.
+ */
+@Component
+public class OfferTimeSeries implements OfferIndex {
+
+    private final Series total = new Series();
+    private final Map<String, Series> sectors = new HashMap<>();
+    private final Map<String, Series> regions = new HashMap<>();
+    // What each offer was counted under, to take it back on update/delete
+    private final Map<Integer, Contribution> contributions = new HashMap<>();
+
+    private record Contribution(LocalDate date, String sector, List<String> regions) {
+    }
+
+    // Rollups of one series: year -> counts per month (0-11) and per day of year (0-365)
+    private static final class Series {
+        private final Map<Integer, long[]> months = new HashMap<>();
+        private final Map<Integer, long[]> days = new HashMap<>();
+
+        void add(LocalDate date, int delta) {
+            months.computeIfAbsent(date.getYear(), year -> new long[12])[date.getMonthValue() - 1] += delta;
+            days.computeIfAbsent(date.getYear(), year -> new long[366])[date.getDayOfYear() - 1] += delta;
+        }
+
+        long month(YearMonth month) {
+            long[] counts = months.get(month.getYear());
+            return counts == null ? 0 : counts[month.getMonthValue() - 1];
+        }
+
+        long day(LocalDate date) {
+            long[] counts = days.get(date.getYear());
+            return counts == null ? 0 : counts[date.getDayOfYear() - 1];
+        }
+
+        long[] months(YearMonth from, int length) {
+            long[] counts = new long[length];
+            for (int i = 0; i < length; i++) {
+                counts[i] = month(from.plusMonths(i));
+            }
+            return counts;
+        }
+
+        boolean isEmpty() {
+            for (long[] counts : months.values()) {
+                for (long count : counts) {
+                    if (count != 0) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        total.months.clear();
+        total.days.clear();
+        sectors.clear();
+        regions.clear();
+        contributions.clear();
+    }
+
+    @Override
+    public void add(offer offer) {
+        if (offer.getDatePublication() == null) {
+            remove(offer.getOffer_id());
+            return;
+        }
+        String sector = offer.getSectorActivity() != null && !offer.getSectorActivity().trim().isEmpty()
+                ? offer.getSectorActivity() : null;
+        Contribution contribution = new Contribution(offer.getDatePublication(), sector,
+                StatisticsService.regionsOf(offer.getLocation()));
+
+        synchronized (this) {
+            Contribution previous = contributions.put(offer.getOffer_id(), contribution);
+            if (previous != null) {
+                apply(previous, -1);
+            }
+            apply(contribution, 1);
+        }
+    }
+
+    @Override
+    public synchronized void remove(int offerId) {
+        Contribution previous = contributions.remove(offerId);
+        if (previous != null) {
+            apply(previous, -1);
+        }
+    }
+
+    /** Offers published in each month from {@code from} to {@code to}, both included. */
+    public synchronized long[] getMonthlyCounts(YearMonth from, YearMonth to) {
+        return total.months(from, monthsBetween(from, to));
+    }
+
+    /** Offers published in each month from {@code from} to {@code to}, per sector having at least one. */
+    public synchronized Map<String, long[]> getMonthlyCountsBySector(YearMonth from, YearMonth to) {
+        return breakdown(sectors, from, to);
+    }
+
+    /** Region mentions of the offers published in each month from {@code from} to {@code to}, per region. */
+    public synchronized Map<String, long[]> getMonthlyCountsByRegion(YearMonth from, YearMonth to) {
+        return breakdown(regions, from, to);
+    }
+
+    /** Offers published on each day from {@code from} to {@code to}, both included. */
+    public synchronized long[] getDailyCounts(LocalDate from, LocalDate to) {
+        long[] counts = new long[(int) ChronoUnit.DAYS.between(from, to) + 1];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = total.day(from.plusDays(i));
+        }
+        return counts;
+    }
+
+    // Caller must hold the monitor
+    private Map<String, long[]> breakdown(Map<String, Series> series, YearMonth from, YearMonth to) {
+        int length = monthsBetween(from, to);
+        Map<String, long[]> counts = new HashMap<>();
+        series.forEach((name, values) -> {
+            long[] months = values.months(from, length);
+            for (long count : months) {
+                if (count != 0) {
+                    counts.put(name, months);
+                    break;
+                }
+            }
+        });
+        return counts;
+    }
+
+    // Caller must hold the monitor
+    private void apply(Contribution contribution, int delta) {
+        total.add(contribution.date(), delta);
+        if (contribution.sector() != null) {
+            count(sectors, contribution.sector(), contribution.date(), delta);
+        }
+        contribution.regions().forEach(region -> count(regions, region, contribution.date(), delta));
+    }
+
+    private static void count(Map<String, Series> series, String key, LocalDate date, int delta) {
+        Series values = series.computeIfAbsent(key, name -> new Series());
+        values.add(date, delta);
+        // Drop categories falling back to zero, so that the maps only hold what exists
+        if (delta < 0 && values.isEmpty()) {
+            series.remove(key);
+        }
+    }
+
+    private static int monthsBetween(YearMonth from, YearMonth to) {
+        return (int) ChronoUnit.MONTHS.between(from, to) + 1;
+    }
+}
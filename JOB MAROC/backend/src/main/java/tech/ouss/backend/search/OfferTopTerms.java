@@ -0,0 +1,141 @@
+package tech.ouss.backend.search;
+
+import org.springframework.stereotype.Component;
+import tech.ouss.backend.models.offer;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Most requested skills (the " - " separated parts of offer.skills), most hiring companies and most frequent job
+ * titles, by number of offers, kept up to date on every offer write. Each field is a {@link HeavyHitters}, so
+ * memory stays fixed as the vocabulary grows and a top-K query never scans the offers. Per offer, only the 64-bit
+ * fingerprints of its values are kept, to take them back on update/delete.
+ * Values are compared accent- and case-insensitively and shown as first written.
+ */
+@Component
+public class OfferTopTerms implements OfferIndex {
+
+    public enum Field {
+        SKILL("skills"), COMPANY("companies"), TITLE("titles");
+
+        private final String param;
+
+        Field(String param) {
+            this.param = param;
+        }
+
+        public String getParam() {
+            return param;
+        }
+
+        public static Field fromParam(String param) {
+            for (Field field : values()) {
+                if (field.param.equalsIgnoreCase(param)) {
+                    return field;
+                }
+            }
+            throw new IllegalArgumentException("Unknown top field: " + param);
+        }
+    }
+
+    /** Largest top-K served; the heaps track more candidates so that the top stays accurate as counts move. */
+    public static final int MAX_TOP = 50;
+
+    private final Map<Field, HeavyHitters> hitters = new EnumMap<>(Field.class);
+    // Fingerprints of the keys each offer contributed, by field ordinal, to decrement them on update/delete
+    private final Map<Integer, long[][]> offerKeys = new HashMap<>();
+
+    public OfferTopTerms() {
+        for (Field field : Field.values()) {
+            hitters.put(field, new HeavyHitters());
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        hitters.values().forEach(HeavyHitters::clear);
+        offerKeys.clear();
+    }
+
+    @Override
+    public void add(offer offer) {
+        Map<Field, Map<String, String>> values = new EnumMap<>(Field.class);
+        values.put(Field.SKILL, keysOf(offer.getSkills() == null ? new String[0] : offer.getSkills().split("\\s+-\\s+")));
+        values.put(Field.COMPANY, keysOf(offer.getCompanyName()));
+        values.put(Field.TITLE, keysOf(offer.getTitle()));
+
+        synchronized (this) {
+            unindex(offer.getOffer_id());
+            long[][] contributed = new long[Field.values().length][];
+            for (Map.Entry<Field, Map<String, String>> field : values.entrySet()) {
+                HeavyHitters fieldHitters = hitters.get(field.getKey());
+                long[] fingerprints = new long[field.getValue().size()];
+                int i = 0;
+                for (Map.Entry<String, String> key : field.getValue().entrySet()) {
+                    fingerprints[i] = HeavyHitters.fingerprint(key.getKey());
+                    fieldHitters.add(fingerprints[i++], key.getKey(), key.getValue(), 1);
+                }
+                contributed[field.getKey().ordinal()] = fingerprints;
+            }
+            offerKeys.put(offer.getOffer_id(), contributed);
+        }
+    }
+
+    @Override
+    public synchronized void remove(int offerId) {
+        unindex(offerId);
+    }
+
+    /**
+     * The {@code limit} (at most MAX_TOP) most frequent values of a field.
+     * @return list of {"name", "count"}, most frequent first; counts are estimates, never below the exact count.
+     */
+    public List<Map<String, Object>> top(Field field, int limit) {
+        List<HeavyHitters.Hitter> top;
+        synchronized (this) {
+            top = hitters.get(field).top(Math.min(limit, MAX_TOP));
+        }
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (HeavyHitters.Hitter hitter : top) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("name", hitter.text());
+            item.put("count", (long) hitter.count());
+            items.add(item);
+        }
+        return items;
+    }
+
+    // Caller must hold the monitor
+    private void unindex(int offerId) {
+        long[][] contributed = offerKeys.remove(offerId);
+        if (contributed == null) {
+            return;
+        }
+        for (Field field : Field.values()) {
+            for (long fingerprint : contributed[field.ordinal()]) {
+                hitters.get(field).add(fingerprint, null, null, -1);
+            }
+        }
+    }
+
+    // normalised key -> display text, one entry per distinct key
+    private static Map<String, String> keysOf(String... texts) {
+        Map<String, String> keys = new LinkedHashMap<>();
+        for (String text : texts) {
+            if (text == null) {
+                continue;
+            }
+            String display = text.trim().replaceAll("\\s+", " ");
+            String key = OfferSuggestIndex.normalize(display);
+            if (!key.isEmpty()) {
+                keys.putIfAbsent(key, display);
+            }
+        }
+        return keys;
+    }
+}
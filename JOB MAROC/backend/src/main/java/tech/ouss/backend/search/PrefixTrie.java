@@ -0,0 +1,324 @@
+package tech.ouss.backend.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Path-compressed (radix) trie of counted keys, answering "the K most frequent keys starting with this prefix".
+ * Every node caches the top K entries of its subtree, so a lookup is a walk down the prefix plus a copy of
+ * at most K entries, independent of how many keys share the prefix.
+ * Increments keep the caches exact; a decrement that may let an uncached key climb into a node's top K
+ * only marks the node dirty, and the next lookup rebuilds its cache by merging the caches of its children
+ * (rebuilding the dirty ones first) with its own entry: at most depth x fanout x K entries, never the subtree.
+ * Keys whose count drops to 0 are removed, along with the branches left empty.
+ * Not thread-safe: callers synchronise.
+ */
+public class PrefixTrie {
+
+    public record Suggestion(String text, int count) {
+    }
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+    // Higher count first, then alphabetical on the key
+    private static final Comparator<Entry> BEST_FIRST = Comparator.comparingInt((Entry e) -> -e.count).thenComparing(e -> e.key);
+
+    private final int topK;
+    private Node root = new Node("");
+
+    public PrefixTrie(int topK) {
+        this.topK = topK;
+    }
+
+    public void clear() {
+        root = new Node("");
+    }
+
+    /**
+     * Counts one more occurrence of the key.
+     * @param key the normalised key the prefixes are matched against.
+     * @param display the text returned in suggestions; the first one seen for a key is kept.
+     */
+    public void increment(String key, String display) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            int childIndex = childIndex(node, key.charAt(i));
+            if (childIndex < 0) {
+                Node leaf = new Node(key.substring(i));
+                insertChild(node, -(childIndex + 1), leaf);
+                node = leaf;
+                path.add(node);
+                break;
+            }
+            Node child = node.children[childIndex];
+            int common = commonPrefix(child.label, key, i);
+            if (common < child.label.length()) {
+                // Split the edge: the new middle node has exactly the same subtree, hence the same top K
+                Node middle = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                middle.children = new Node[]{child};
+                middle.top = child.top.clone();
+                middle.dirty = child.dirty;
+                node.children[childIndex] = middle;
+                child = middle;
+            }
+            node = child;
+            path.add(node);
+            i += common;
+        }
+
+        if (node.entry == null) {
+            node.entry = new Entry(key, display);
+        }
+        Entry entry = node.entry;
+        entry.count++;
+        for (Node onPath : path) {
+            promote(onPath, entry);
+        }
+    }
+
+    /** Counts one occurrence less of the key; unknown keys are ignored. */
+    public void decrement(String key) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            int childIndex = childIndex(node, key.charAt(i));
+            if (childIndex < 0) {
+                return;
+            }
+            Node child = node.children[childIndex];
+            if (commonPrefix(child.label, key, i) < child.label.length()) {
+                return;
+            }
+            node = child;
+            path.add(node);
+            i += child.label.length();
+        }
+        Entry entry = node.entry;
+        if (entry == null) {
+            return;
+        }
+
+        entry.count--;
+        if (entry.count == 0) {
+            node.entry = null;
+        }
+        for (Node onPath : path) {
+            demote(onPath, entry);
+        }
+        if (entry.count == 0) {
+            prune(path);
+        }
+    }
+
+    /** The most frequent keys starting with the (normalised) prefix, best first. */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        Node node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            int childIndex = childIndex(node, prefix.charAt(i));
+            if (childIndex < 0) {
+                return List.of();
+            }
+            Node child = node.children[childIndex];
+            int common = commonPrefix(child.label, prefix, i);
+            if (i + common == prefix.length()) {
+                // The prefix ends on or inside this edge: every key below the child matches
+                node = child;
+                break;
+            }
+            if (common < child.label.length()) {
+                return List.of();
+            }
+            node = child;
+            i += common;
+        }
+
+        if (node.dirty) {
+            recompute(node);
+        }
+        List<Suggestion> suggestions = new ArrayList<>(Math.min(limit, node.top.length));
+        for (int k = 0; k < node.top.length && k < limit; k++) {
+            suggestions.add(new Suggestion(node.top[k].display, node.top[k].count));
+        }
+        return suggestions;
+    }
+
+    private void promote(Node node, Entry entry) {
+        if (node.dirty) {
+            return;
+        }
+        Entry[] top = node.top;
+        int position = indexOf(top, entry);
+        if (position < 0) {
+            if (top.length < topK) {
+                top = Arrays.copyOf(top, top.length + 1);
+            } else if (BEST_FIRST.compare(entry, top[top.length - 1]) >= 0) {
+                return;
+            }
+            position = top.length - 1;
+            top[position] = entry;
+            node.top = top;
+        }
+        // The count only went up: bubble towards the front
+        while (position > 0 && BEST_FIRST.compare(top[position], top[position - 1]) < 0) {
+            Entry swap = top[position - 1];
+            top[position - 1] = top[position];
+            top[position] = swap;
+            position--;
+        }
+    }
+
+    private void demote(Node node, Entry entry) {
+        if (node.dirty) {
+            return;
+        }
+        Entry[] top = node.top;
+        int position = indexOf(top, entry);
+        if (position < 0) {
+            return;
+        }
+        if (top.length == topK) {
+            // Some key outside the cached top K may now rank higher
+            node.dirty = true;
+            return;
+        }
+        // The cache holds the whole subtree: just keep it sorted
+        if (entry.count == 0) {
+            Entry[] shrunk = new Entry[top.length - 1];
+            System.arraycopy(top, 0, shrunk, 0, position);
+            System.arraycopy(top, position + 1, shrunk, position, top.length - position - 1);
+            node.top = shrunk;
+            return;
+        }
+        while (position < top.length - 1 && BEST_FIRST.compare(top[position], top[position + 1]) > 0) {
+            Entry swap = top[position + 1];
+            top[position + 1] = top[position];
+            top[position] = swap;
+            position++;
+        }
+    }
+
+    // The top K of a subtree is among its own entry and the top K of each child
+    private void recompute(Node node) {
+        List<Entry> entries = new ArrayList<>();
+        if (node.entry != null) {
+            entries.add(node.entry);
+        }
+        for (Node child : node.children) {
+            if (child.dirty) {
+                recompute(child);
+            }
+            entries.addAll(Arrays.asList(child.top));
+        }
+        entries.sort(BEST_FIRST);
+        node.top = entries.subList(0, Math.min(topK, entries.size())).toArray(NO_ENTRIES);
+        node.dirty = false;
+    }
+
+    // Removes the nodes left without entry nor children on the path of a key that just left the trie,
+    // then merges the last node kept into its only child if it has no entry of its own
+    private static void prune(List<Node> path) {
+        for (int depth = path.size() - 1; depth > 0; depth--) {
+            Node node = path.get(depth);
+            if (node.entry != null) {
+                return;
+            }
+            if (node.children.length > 0) {
+                if (node.children.length == 1) {
+                    // Same subtree as the child, hence the same top K
+                    Node child = node.children[0];
+                    node.label = node.label + child.label;
+                    node.children = child.children;
+                    node.entry = child.entry;
+                    node.top = child.top;
+                    node.dirty = child.dirty;
+                }
+                return;
+            }
+            removeChild(path.get(depth - 1), node);
+        }
+    }
+
+    private static int indexOf(Entry[] top, Entry entry) {
+        for (int i = 0; i < top.length; i++) {
+            if (top[i] == entry) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Binary search on the first character of the children labels, Arrays.binarySearch style
+    private static int childIndex(Node node, char c) {
+        int low = 0;
+        int high = node.children.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            char first = node.children[middle].label.charAt(0);
+            if (first < c) {
+                low = middle + 1;
+            } else if (first > c) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static void insertChild(Node node, int position, Node child) {
+        Node[] children = new Node[node.children.length + 1];
+        System.arraycopy(node.children, 0, children, 0, position);
+        children[position] = child;
+        System.arraycopy(node.children, position, children, position + 1, node.children.length - position);
+        node.children = children;
+    }
+
+    private static void removeChild(Node node, Node child) {
+        int position = childIndex(node, child.label.charAt(0));
+        Node[] children = new Node[node.children.length - 1];
+        System.arraycopy(node.children, 0, children, 0, position);
+        System.arraycopy(node.children, position + 1, children, position, children.length - position);
+        node.children = children;
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static final class Node {
+        private String label;
+        private Node[] children = NO_CHILDREN;
+        private Entry entry;
+        private Entry[] top = NO_ENTRIES;
+        private boolean dirty;
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final class Entry {
+        private final String key;
+        private final String display;
+        private int count;
+
+        Entry(String key, String display) {
+            this.key = key;
+            this.display = display;
+        }
+    }
+}
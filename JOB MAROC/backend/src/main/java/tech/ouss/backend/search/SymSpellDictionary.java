@@ -0,0 +1,174 @@
+package tech.ouss.backend.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * SymSpell-style fuzzy lookup ("casabanca" -> "casablanca") over a growing vocabulary.
+ * Every term is registered under all the strings obtained by deleting up to maxDistance characters
+ * from its first prefixLength characters; a lookup generates the same deletions for the misspelled word,
+ * so candidates are found with a few hash probes instead of comparing against the whole vocabulary.
+ * Candidates are then checked with the real (optimal string alignment) edit distance.
+ * The deletion table only stores the int hash of each deletion and the term id, in primitive arrays.
+ * Not thread-safe: callers synchronise.
+ */
+public class SymSpellDictionary {
+
+    public record Correction(String term, int distance) {
+    }
+
+    private final int maxDistance;
+    private final int prefixLength;
+
+    private final List<String> terms = new ArrayList<>();
+    private final Map<String, Integer> termIds = new HashMap<>();
+
+    // Chained hash table: deletion hash -> term ids
+    private int[] buckets = new int[1 << 12];
+    private int[] entryHash = new int[1 << 12];
+    private int[] entryTerm = new int[1 << 12];
+    private int[] entryNext = new int[1 << 12];
+    private int entryCount;
+
+    public SymSpellDictionary(int maxDistance, int prefixLength) {
+        this.maxDistance = maxDistance;
+        this.prefixLength = prefixLength;
+        Arrays.fill(buckets, -1);
+    }
+
+    public int size() {
+        return terms.size();
+    }
+
+    /** Registers a term; returns false if it was already known. */
+    public boolean add(String term) {
+        if (termIds.containsKey(term)) {
+            return false;
+        }
+        int termId = terms.size();
+        terms.add(term);
+        termIds.put(term, termId);
+
+        for (String deletion : deletions(prefix(term), maxDistance)) {
+            put(deletion.hashCode(), termId);
+        }
+        return true;
+    }
+
+    /**
+     * Known terms within the given edit distance of the word, closest first. The word itself is included if known.
+     * @param distance maximum edit distance, capped to the dictionary's maxDistance.
+     */
+    public List<Correction> lookup(String word, int distance) {
+        int max = Math.min(distance, maxDistance);
+        List<Correction> corrections = new ArrayList<>();
+        Set<Integer> seen = new HashSet<>();
+        for (String deletion : deletions(prefix(word), max)) {
+            int hash = deletion.hashCode();
+            for (int entry = buckets[hash & (buckets.length - 1)]; entry >= 0; entry = entryNext[entry]) {
+                if (entryHash[entry] != hash || !seen.add(entryTerm[entry])) {
+                    continue;
+                }
+                String candidate = terms.get(entryTerm[entry]);
+                if (Math.abs(candidate.length() - word.length()) > max) {
+                    continue;
+                }
+                int candidateDistance = editDistance(word, candidate, max);
+                if (candidateDistance <= max) {
+                    corrections.add(new Correction(candidate, candidateDistance));
+                }
+            }
+        }
+        corrections.sort((a, b) -> Integer.compare(a.distance(), b.distance()));
+        return corrections;
+    }
+
+    private String prefix(String term) {
+        return term.length() > prefixLength ? term.substring(0, prefixLength) : term;
+    }
+
+    // The word itself plus every string obtained by deleting 1..max characters
+    private static Set<String> deletions(String word, int max) {
+        Set<String> deletions = new HashSet<>();
+        deletions.add(word);
+        List<String> frontier = List.of(word);
+        for (int round = 0; round < max; round++) {
+            List<String> next = new ArrayList<>();
+            for (String current : frontier) {
+                for (int i = 0; i < current.length(); i++) {
+                    String deletion = current.substring(0, i) + current.substring(i + 1);
+                    if (deletions.add(deletion)) {
+                        next.add(deletion);
+                    }
+                }
+            }
+            frontier = next;
+        }
+        return deletions;
+    }
+
+    private void put(int hash, int termId) {
+        if (entryCount == entryHash.length) {
+            int capacity = entryCount * 2;
+            entryHash = Arrays.copyOf(entryHash, capacity);
+            entryTerm = Arrays.copyOf(entryTerm, capacity);
+            entryNext = Arrays.copyOf(entryNext, capacity);
+            rehash(capacity);
+        }
+        int bucket = hash & (buckets.length - 1);
+        entryHash[entryCount] = hash;
+        entryTerm[entryCount] = termId;
+        entryNext[entryCount] = buckets[bucket];
+        buckets[bucket] = entryCount;
+        entryCount++;
+    }
+
+    private void rehash(int capacity) {
+        buckets = new int[capacity];
+        Arrays.fill(buckets, -1);
+        for (int entry = 0; entry < entryCount; entry++) {
+            int bucket = entryHash[entry] & (capacity - 1);
+            entryNext[entry] = buckets[bucket];
+            buckets[bucket] = entry;
+        }
+    }
+
+    /**
+     * Optimal string alignment distance (Levenshtein plus adjacent transpositions).
+     * Returns max + 1 as soon as the distance is known to exceed max.
+     */
+    static int editDistance(String a, String b, int max) {
+        int[] previousPrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMinimum = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previousPrevious[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMinimum = Math.min(rowMinimum, value);
+            }
+            if (rowMinimum > max) {
+                return max + 1;
+            }
+            int[] recycled = previousPrevious;
+            previousPrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+}
@@ -1,21 +1,98 @@
 package tech.ouss.backend.services;
+import jakarta.annotation.PostConstruct;
 import tech.ouss.backend.Repository.userRepository;
+import tech.ouss.backend.components.JwtUserDetails;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import tech.ouss.backend.models.userEntity;
 
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Loads users by email for sign-in and for the JWTs that cannot be trusted on their claims alone, as an immutable
+ * {@link JwtUserDetails} (id, email, password hash, role name, acceptance status and token version): the entity,
+ * its notifications and talent are never shared between requests. Code that needs the whole user loads it.
+ * Principals are cached for spring.app.userDetailsCacheTtlMs (60 s by default, 0 disables the cache), at most
+ * spring.app.userDetailsCacheSize of them, least recently used first out. UserEntityListener evicts a user as soon
+ * as a change to it is committed, so the TTL only bounds the staleness of writes made outside this instance.
+ */
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
     @Autowired
     private userRepository userRepository;
 
+    @Value("${spring.app.userDetailsCacheTtlMs:60000}")
+    private long cacheTtlMs;
+
+    @Value("${spring.app.userDetailsCacheSize:1000}")
+    private int cacheSize;
+
+    private record CachedUser(JwtUserDetails user, long expiresAt) {
+    }
+
+    // Lower-cased email -> user, in access order
+    private Map<String, CachedUser> cache;
+    // Incremented on every eviction: a load that raced with one is not cached
+    private long evictions;
+
+    @PostConstruct
+    void init() {
+        cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedUser> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         if (username == null || username.isEmpty()) {
             throw new UsernameNotFoundException("Username cannot be null or empty");
         }
-        return userRepository.findByEmail(username);
+        if (cacheTtlMs <= 0) {
+            return principalOf(userRepository.findByEmail(username));
+        }
+        String key = username.toLowerCase(Locale.ROOT);
+        long evictionsBefore;
+        synchronized (this) {
+            CachedUser cached = cache.get(key);
+            if (cached != null && System.currentTimeMillis() < cached.expiresAt()) {
+                return cached.user();
+            }
+            evictionsBefore = evictions;
+        }
+
+        JwtUserDetails user = principalOf(userRepository.findByEmail(username));
+        if (user != null) { // Unknown emails are not cached: they may sign up at any time
+            synchronized (this) {
+                if (evictions == evictionsBefore) {
+                    cache.put(key, new CachedUser(user, System.currentTimeMillis() + cacheTtlMs));
+                }
+            }
+        }
+        return user;
+    }
+
+    private static JwtUserDetails principalOf(userEntity user) {
+        if (user == null) {
+            return null;
+        }
+        return new JwtUserDetails(user.getUserId(), user.getEmail(), user.getRole() != null ? user.getRole().getRole_name() : null,
+                user.getIs_accepted(), user.getTokenVersion(), user.getPassword());
+    }
+
+    /** Drops the cached user with this email, if any (null is ignored). */
+    public synchronized void evict(String email) {
+        if (email != null) {
+            cache.remove(email.toLowerCase(Locale.ROOT));
+            evictions++;
+        }
     }
 }
@@ -0,0 +1,69 @@
+package tech.ouss.backend.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tech.ouss.backend.Repository.offerRepository;
+
+import java.util.List;
+
+/**
+ * Computes the derived columns (region_id, study_level_mask, experience_min/max_years) of the offers
+ * written before those columns existed. New and updated offers get them from offerService.
+ * Runs once in the background after startup, one short transaction per batch, and is a no-op once
+ * every row has been computed. The bulk updates bypass the entity listener, so the statistics cached
+ * meanwhile are dropped at the end.
+ */
+@Component
+public class OfferDerivedColumnsBackfill {
+    private static final Logger logger = LoggerFactory.getLogger(OfferDerivedColumnsBackfill.class);
+    private static final int BATCH_SIZE = 500;
+
+    private final offerRepository offerRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final StatisticsCache statisticsCache;
+
+    public OfferDerivedColumnsBackfill(offerRepository offerRepository, PlatformTransactionManager transactionManager,
+                                       StatisticsCache statisticsCache) {
+        this.offerRepository = offerRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.statisticsCache = statisticsCache;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long start = System.currentTimeMillis();
+        int lastId = 0;
+        int count = 0;
+        while (true) {
+            int after = lastId;
+            List<Object[]> rows = transactionTemplate.execute(status -> {
+                List<Object[]> batch = offerRepository.findRawValuesWithoutDerivedColumns(after, PageRequest.ofSize(BATCH_SIZE));
+                for (Object[] row : batch) {
+                    StatisticsService.ExperienceRange experience = StatisticsService.experienceRangeOf((String) row[3]);
+                    offerRepository.updateDerivedColumns((Integer) row[0],
+                            StatisticsService.regionIdOf((String) row[1]),
+                            StatisticsService.studyLevelMaskOf((String) row[2]),
+                            experience.minYears(), experience.maxYears());
+                }
+                return batch;
+            });
+            if (rows == null || rows.isEmpty()) {
+                break;
+            }
+            lastId = (Integer) rows.get(rows.size() - 1)[0];
+            count += rows.size();
+        }
+        if (count > 0) {
+            statisticsCache.clear();
+            logger.info("Computed the derived columns of {} offers in {} ms", count, System.currentTimeMillis() - start);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package tech.ouss.backend.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Location -> Moroccan region, compiled once: every keyword of the region table (generic terms, region names,
+ * cities) is a pattern of one Aho-Corasick automaton, so a location is resolved in a single pass over its
+ * characters, accent-folded on the fly through a precomputed table.
+ * The result is the one of the former chain of String.contains checks: each keyword carries the rank of the
+ * check it belonged to, and the best-ranked keyword found in the location wins.
+ */
+final class RegionMatcher {
+    private static final Logger logger = LoggerFactory.getLogger(RegionMatcher.class);
+
+    private static final String NON_SPECIFIE = StatisticsService.NON_SPECIFIE;
+
+    // -- Cas génériques ou non pertinents : "Non spécifié" --
+    private static final List<String> GENERIC_KEYWORDS = List.of(
+            "international", "tout le maroc", "plusieurs villes", "service client", "teletravail",
+            "toute le maroc", "tous le maroc"
+    );
+    private static final Set<String> GENERIC_LOCATIONS = Set.of(
+            "maroc", "tele travail", "remote", "hybrid", "on site", "on-site", "a distance"
+    );
+
+    // Noms complets des régions (non accentués) -> nom affiché
+    private static final String[][] REGION_NAMES = {
+            {"tanger-tetouan-al hoceima", "Tanger-Tétouan-Al Hoceïma"},
+            {"l'oriental", "L'Oriental"},
+            {"fes-meknes", "Fès-Meknès"},
+            {"rabat-sale-kenitra", "Rabat-Salé-Kénitra"},
+            {"beni mellal-khenifra", "Béni Mellal-Khénifra"},
+            {"casablanca-settat", "Casablanca-Settat"},
+            {"marrakech-safi", "Marrakech-Safi"},
+            {"draa-tafilalet", "Drâa-Tafilalet"},
+            {"souss-massa", "Souss-Massa"},
+            {"guelmim-oued noun", "Guelmim-Oued Noun"},
+            {"laayoune-sakia el hamra", "Laâyoune-Sakia El Hamra"},
+            {"dakhla-oued ed-dahab", "Dakhla-Oued Ed-Dahab"},
+    };
+
+    // Villes/zones -> région, testées dans cet ordre (mots-clés en non accentué, y compris les fautes connues)
+    private static final Object[][] CITY_GROUPS = {
+            {"Tanger-Tétouan-Al Hoceïma", List.of("tanger", "tetouan", "al hoceima", "larache", "chefchaouen", "m'diq",
+                    "fnideq", "ouezzane", "martil", "asilah", "el houceima")},
+            {"L'Oriental", List.of("oujda", "nador", "berkane", "taourirt", "jerada", "figuig", "driouch", "guercif")},
+            {"Fès-Meknès", List.of("fes", "meknes", "ifrane", "sidi kacem", "taza", "boulemane", "el hajeb", "khemisset",
+                    "moulay yaacoub", "sefrou")},
+            {"Rabat-Salé-Kénitra", List.of("rabat", "sale", "kenitra", "skhirat", "temara", "khemisset", "sidi slimane",
+                    "sidi yahya el gharb", "ain aouda", "ain atiq", "bouznika", "sala al jadida", "belksiri", "tiflet",
+                    "moulay bousselham", "technopolis", "ain el aouda", "sidi allal bahraoui", "skhrirat")},
+            {"Béni Mellal-Khénifra", List.of("beni mellal", "khenifra", "fquih ben salah", "azilal", "khouribga")},
+            {"Casablanca-Settat", List.of("casablanca", "mohammedia", "settat", "el jadida", "sidi bennour", "berrechid",
+                    "nouaceur", "mediouna", "ben slimane", "had soualem", "bouskoura", "sidi rahhal", "tit mellil",
+                    "jorf lasfar", "casabanca", "ain sbaa", "dar bouazza")},
+            {"Marrakech-Safi", List.of("marrakech", "safi", "essaouira", "kelaa sraghna", "chichaoua", "youssoufia",
+                    "rehamna", "sebt gzoula", "benguerir", "imintanoute")},
+            {"Drâa-Tafilalet", List.of("errachidia", "ouarzazate", "zagora", "tinghir", "midelt", "region draa tafilalet",
+                    "el jorf")},
+            {"Souss-Massa", List.of("agadir", "inezgane", "tiznit", "taroudant", "chtouka ait baha", "ait melloul",
+                    "sidi ifni", "tata", "taliouine", "inzegane", "dcheira", "oulad teima")},
+            {"Guelmim-Oued Noun", List.of("guelmim", "tan-tan", "assah", "smara", "boujdour")},
+            {"Laâyoune-Sakia El Hamra", List.of("laayoune", "smara", "boujdour", "tarfaya")},
+            {"Dakhla-Oued Ed-Dahab", List.of("dakhla", "aousserd")},
+    };
+
+    // Accent folding (StatisticsService.removeAccents then toLowerCase) of every char below FOLD_LIMIT;
+    // NO_SINGLE_CHAR means the fold is empty or several chars, given by MULTI_FOLD
+    private static final int FOLD_LIMIT = 0x370;
+    private static final char NO_SINGLE_CHAR = '\uFFFF';
+    private static final char[] SINGLE_FOLD = new char[FOLD_LIMIT];
+    private static final String[] MULTI_FOLD = new String[FOLD_LIMIT];
+
+    private static final int NO_MATCH = Integer.MAX_VALUE;
+    // Rank of a keyword = position of its check in the former chain; ranks index RESULTS
+    private static final List<String> RESULTS = new ArrayList<>();
+    // Dense DFA: state * alphabet size + char class -> next state
+    private static final int[] CHAR_CLASSES = new int[128];
+    private static int alphabetSize;
+    private static int[] transitions;
+    // Best rank among the keywords ending at each state (suffixes included)
+    private static int[] bestRank;
+
+    static {
+        for (char c = 0; c < FOLD_LIMIT; c++) {
+            String folded = StatisticsService.removeAccents(String.valueOf(c)).toLowerCase();
+            SINGLE_FOLD[c] = folded.length() == 1 ? folded.charAt(0) : NO_SINGLE_CHAR;
+            MULTI_FOLD[c] = folded;
+        }
+
+        List<String> keywords = new ArrayList<>();
+        List<Integer> ranks = new ArrayList<>();
+        RESULTS.add(NON_SPECIFIE);
+        for (String keyword : GENERIC_KEYWORDS) {
+            keywords.add(keyword);
+            ranks.add(0);
+        }
+        // The region names used to be tried in the iteration order of a HashMap: replicate it
+        Map<String, String> regionNames = new HashMap<>();
+        for (String[] region : REGION_NAMES) {
+            regionNames.put(region[0], region[1]);
+        }
+        for (Map.Entry<String, String> region : regionNames.entrySet()) {
+            keywords.add(region.getKey());
+            ranks.add(RESULTS.size());
+            RESULTS.add(region.getValue());
+        }
+        for (Object[] group : CITY_GROUPS) {
+            @SuppressWarnings("unchecked")
+            List<String> cities = (List<String>) group[1];
+            for (String city : cities) {
+                keywords.add(city);
+                ranks.add(RESULTS.size());
+            }
+            RESULTS.add((String) group[0]);
+        }
+        compile(keywords, ranks);
+    }
+
+    private RegionMatcher() {
+    }
+
+    /** Same result as the former StatisticsService.normalizeRegion, including its "Non spécifié" fallbacks. */
+    static String normalize(String location) {
+        if (location == null || location.trim().isEmpty()) {
+            return NON_SPECIFIE;
+        }
+        String cleaned = fold(location);
+        if (GENERIC_LOCATIONS.contains(cleaned)) {
+            return NON_SPECIFIE;
+        }
+
+        int rank = NO_MATCH;
+        int state = 0;
+        for (int i = 0; i < cleaned.length() && rank != 0; i++) {
+            char c = cleaned.charAt(i);
+            state = transitions[state * alphabetSize + (c < 128 ? CHAR_CLASSES[c] : 0)];
+            rank = Math.min(rank, bestRank[state]);
+        }
+        if (rank == NO_MATCH) {
+            // Au niveau debug : appelé pour chaque offre à chaque calcul de statistiques
+            logger.debug("Région non reconnue pour la localisation: {}", location);
+            return NON_SPECIFIE;
+        }
+        return RESULTS.get(rank);
+    }
+
+    // removeAccents(location).toLowerCase().trim(), through the fold table when every char is in it
+    private static String fold(String location) {
+        StringBuilder folded = new StringBuilder(location.length());
+        for (int i = 0; i < location.length(); i++) {
+            char c = location.charAt(i);
+            if (c >= FOLD_LIMIT) {
+                return StatisticsService.removeAccents(location).toLowerCase().trim();
+            }
+            if (SINGLE_FOLD[c] != NO_SINGLE_CHAR) {
+                folded.append(SINGLE_FOLD[c]);
+            } else {
+                folded.append(MULTI_FOLD[c]);
+            }
+        }
+        return folded.toString().trim();
+    }
+
+    private static void compile(List<String> keywords, List<Integer> ranks) {
+        // Char classes: one per char used in a keyword, class 0 for everything else
+        alphabetSize = 1;
+        for (String keyword : keywords) {
+            for (char c : keyword.toCharArray()) {
+                if (CHAR_CLASSES[c] == 0) {
+                    CHAR_CLASSES[c] = alphabetSize++;
+                }
+            }
+        }
+
+        // Trie of the keywords
+        List<int[]> trie = new ArrayList<>();
+        List<Integer> stateRanks = new ArrayList<>();
+        trie.add(newRow());
+        stateRanks.add(NO_MATCH);
+        for (int k = 0; k < keywords.size(); k++) {
+            int state = 0;
+            for (char c : keywords.get(k).toCharArray()) {
+                int charClass = CHAR_CLASSES[c];
+                if (trie.get(state)[charClass] < 0) {
+                    trie.get(state)[charClass] = trie.size();
+                    trie.add(newRow());
+                    stateRanks.add(NO_MATCH);
+                }
+                state = trie.get(state)[charClass];
+            }
+            stateRanks.set(state, Math.min(stateRanks.get(state), ranks.get(k)));
+        }
+
+        // Breadth-first: failure links turn the trie into a DFA, and ranks are inherited from the failure state
+        transitions = new int[trie.size() * alphabetSize];
+        bestRank = new int[trie.size()];
+        int[] failure = new int[trie.size()];
+        Queue<Integer> queue = new ArrayDeque<>();
+        bestRank[0] = stateRanks.get(0);
+        for (int charClass = 0; charClass < alphabetSize; charClass++) {
+            int child = trie.get(0)[charClass];
+            if (child < 0) {
+                transitions[charClass] = 0;
+            } else {
+                transitions[charClass] = child;
+                failure[child] = 0;
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.remove();
+            bestRank[state] = Math.min(stateRanks.get(state), bestRank[failure[state]]);
+            for (int charClass = 0; charClass < alphabetSize; charClass++) {
+                int child = trie.get(state)[charClass];
+                int fallback = transitions[failure[state] * alphabetSize + charClass];
+                if (child < 0) {
+                    transitions[state * alphabetSize + charClass] = fallback;
+                } else {
+                    transitions[state * alphabetSize + charClass] = child;
+                    failure[child] = fallback;
+                    queue.add(child);
+                }
+            }
+        }
+    }
+
+    private static int[] newRow() {
+        int[] row = new int[alphabetSize];
+        Arrays.fill(row, -1);
+        return row;
+    }
+}
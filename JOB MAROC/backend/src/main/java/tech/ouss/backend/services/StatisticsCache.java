@@ -0,0 +1,140 @@
+package tech.ouss.backend.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tech.ouss.backend.search.OfferCatalogVersion;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Results of StatisticsService, shared by concurrent and successive requests.
+ * An entry is valid for spring.app.statistics.cache-ttl-ms (60 s by default, 0 disables the cache) and only as long
+ * as the offer catalogue is at the version it was computed from (see OfferCatalogVersion), so offer writes made
+ * through this instance are seen at once; the TTL bounds the staleness for writes made elsewhere (sql mode).
+ * Concurrent misses on the same key share one computation (single flight): the first caller computes,
+ * the others wait for its result.
+ * Cached values are shared between requests and must not be modified.
+ */
+@Component
+public class StatisticsCache {
+
+    // Beyond this many keys (e.g. many distinct date ranges) the invalid entries are dropped, then all if needed
+    public static final int MAX_ENTRIES = 1000;
+
+    private record Entry(Object value, long version, long expiresAt) {
+    }
+
+    private final OfferCatalogVersion catalogVersion;
+    private final long ttlMillis;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder computations = new LongAdder();
+    private final LongAdder computeNanos = new LongAdder();
+    private final AtomicLong maxComputeNanos = new AtomicLong();
+
+    public StatisticsCache(OfferCatalogVersion catalogVersion,
+                           @Value("${spring.app.statistics.cache-ttl-ms:60000}") long ttlMillis) {
+        this.catalogVersion = catalogVersion;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * The cached result for {@code key}, or the result of {@code compute} if there is no valid one.
+     * Exceptions thrown by {@code compute} reach every caller waiting for it and are not cached.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Supplier<T> compute) {
+        if (ttlMillis <= 0) {
+            return compute.get();
+        }
+        Entry entry = entries.get(key);
+        if (entry != null && isValid(entry, System.currentTimeMillis())) {
+            hits.increment();
+            return (T) entry.value();
+        }
+
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            coalesced.increment();
+            try {
+                return (T) running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        misses.increment();
+        try {
+            // Version read before computing: a write racing with the computation leaves the entry already stale
+            long version = catalogVersion.getVersion();
+            long start = System.nanoTime();
+            T value = compute.get();
+            long elapsed = System.nanoTime() - start;
+            computations.increment();
+            computeNanos.add(elapsed);
+            maxComputeNanos.accumulateAndGet(elapsed, Math::max);
+
+            if (entries.size() >= MAX_ENTRIES) {
+                evict();
+            }
+            entries.put(key, new Entry(value, version, System.currentTimeMillis() + ttlMillis));
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /** Drops every entry, e.g. after a bulk change to the offer table that bypassed the entity listener. */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Counters since startup: hits, misses (computations), coalesced (misses that waited for another caller's
+     * computation), entries, and time of the successful computations (total, average and max, in milliseconds).
+     */
+    public Map<String, Object> getMetrics() {
+        long missCount = misses.sum();
+        long hitCount = hits.sum();
+        long requests = hitCount + missCount + coalesced.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("ttlMillis", ttlMillis);
+        metrics.put("entries", entries.size());
+        metrics.put("hits", hitCount);
+        metrics.put("misses", missCount);
+        metrics.put("coalesced", coalesced.sum());
+        metrics.put("hitRatio", requests == 0 ? 0.0 : (double) (requests - missCount) / requests);
+        metrics.put("computeTotalMillis", computeNanos.sum() / 1_000_000.0);
+        metrics.put("computeAverageMillis", computations.sum() == 0 ? 0.0 : computeNanos.sum() / 1_000_000.0 / computations.sum());
+        metrics.put("computeMaxMillis", maxComputeNanos.get() / 1_000_000.0);
+        return metrics;
+    }
+
+    private boolean isValid(Entry entry, long now) {
+        return entry.version() == catalogVersion.getVersion() && now < entry.expiresAt();
+    }
+
+    private void evict() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> !isValid(entry, now));
+        if (entries.size() >= MAX_ENTRIES) {
+            entries.clear();
+        }
+    }
+}
@@ -1,38 +1,126 @@
 package tech.ouss.backend.services;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import tech.ouss.backend.models.offer; // Assurez-vous d'importer votre entité Offer
-import tech.ouss.backend.Repository.offerRepository; // Assurez-vous d'importer votre OfferRepository
+import tech.ouss.backend.Enums.Modality;
+import tech.ouss.backend.Repository.offerRepository;
+import tech.ouss.backend.models.offer;
+import tech.ouss.backend.search.OfferCardinalitySketches;
+import tech.ouss.backend.search.OfferColumnarSnapshot;
+import tech.ouss.backend.search.OfferDataCube;
+import tech.ouss.backend.search.OfferSalaryDigests;
+import tech.ouss.backend.search.OfferStatisticsCounters;
+import tech.ouss.backend.search.OfferTimeSeries;
+import tech.ouss.backend.search.OfferTopTerms;
 
 import java.text.Normalizer;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collector;
 import java.util.stream.Collectors;
 
 @Service
 public class StatisticsService {
 
-    private final offerRepository offerRepository;
+    public static final String NON_SPECIFIE = "Non spécifié";
+
+    // Ordre d'affichage des niveaux d'étude (identique au frontend)
+    public static final List<String> STUDY_LEVELS = List.of(
+            "Autodidacte", "< Bac", "Bac", "Bac+1", "Bac+2", "Bac+3", "Bac+4", "Bac+5 et plus"
+    );
+
+    public static final List<String> MOROCCAN_REGIONS = List.of(
+            "Tanger-Tétouan-Al Hoceïma", "L'Oriental", "Fès-Meknès",
+            "Rabat-Salé-Kénitra", "Béni Mellal-Khénifra", "Casablanca-Settat",
+            "Marrakech-Safi", "Drâa-Tafilalet", "Souss-Massa",
+            "Guelmim-Oued Noun", "Laâyoune-Sakia El Hamra", "Dakhla-Oued Ed-Dahab",
+            NON_SPECIFIE // Inclure cette catégorie pour les non-spécifiés ou non reconnus
+    );
+
+    // Source des comptes (spring.app.statistics.source) :
+    // "memory" (défaut) lit les compteurs maintenus à chaque écriture d'offre, sans parcourir la table offer ;
+    // "sql" fait compter la base (GROUP BY), utile si plusieurs instances écrivent dans la même base.
+    public static final String SOURCE_MEMORY = "memory";
+    public static final String SOURCE_SQL = "sql";
+
+    // Séries temporelles : répartitions possibles et étendue maximale d'une requête
+    public static final String BY_SECTOR = "sector";
+    public static final String BY_REGION = "region";
+    public static final int MAX_MONTHS = 120;
+    public static final int MAX_DAYS = 366;
+
+    /**
+     * Filtres optionnels des graphiques, null = pas de filtre : région (une des MOROCCAN_REGIONS), secteur,
+     * modalité, niveau d'étude (un des STUDY_LEVELS), type de contrat et mois de publication de from à to (inclus).
+     * Une offre est retenue si elle mentionne la région, le niveau d'étude et le type de contrat demandés.
+     */
+    public record OfferFilter(String region, String sector, String modality, String studyLevel, String contractType,
+                              YearMonth from, YearMonth to) {
+        public static final OfferFilter NONE = new OfferFilter(null, null, null, null, null, null, null);
+
+        public boolean isEmpty() {
+            return equals(NONE);
+        }
+    }
 
-    public StatisticsService(offerRepository offerRepository) {
+    private final OfferStatisticsCounters counters;
+    private final OfferTimeSeries timeSeries;
+    private final OfferSalaryDigests salaryDigests;
+    private final OfferCardinalitySketches cardinalitySketches;
+    private final OfferTopTerms topTerms;
+    private final OfferColumnarSnapshot columnarSnapshot;
+    private final OfferDataCube dataCube;
+    private final offerRepository offerRepository;
+    private final boolean sqlSource;
+
+    public StatisticsService(OfferStatisticsCounters counters, OfferTimeSeries timeSeries,
+                             OfferSalaryDigests salaryDigests, OfferCardinalitySketches cardinalitySketches,
+                             OfferTopTerms topTerms, OfferColumnarSnapshot columnarSnapshot, OfferDataCube dataCube,
+                             offerRepository offerRepository,
+                             @Value("${spring.app.statistics.source:memory}") String source) {
+        if (!SOURCE_MEMORY.equals(source) && !SOURCE_SQL.equals(source)) {
+            throw new IllegalArgumentException("spring.app.statistics.source must be 'memory' or 'sql', not: " + source);
+        }
+        this.counters = counters;
+        this.timeSeries = timeSeries;
+        this.salaryDigests = salaryDigests;
+        this.cardinalitySketches = cardinalitySketches;
+        this.topTerms = topTerms;
+        this.columnarSnapshot = columnarSnapshot;
+        this.dataCube = dataCube;
         this.offerRepository = offerRepository;
+        this.sqlSource = SOURCE_SQL.equals(source);
     }
 
     /**
      * Calcule le top 5 des secteurs d'activité basés sur le nombre d'offres,
      * retournant une liste de Map au lieu d'un DTO spécifique.
+     * @param filter filtres optionnels (OfferFilter.NONE pour toutes les offres)
      * @return Une liste de Map<String, Object> où chaque map contient "name" (String) et "count" (Long).
      */
-    public List<Map<String, Object>> getTop5Sectors() {
-        List<offer> allOffers = offerRepository.findAll();
-
-        // Agréger les offres par secteur d'activité et compter
-        Map<String, Long> sectorCounts = allOffers.stream()
-                .filter(offer -> offer.getSectorActivity() != null && !offer.getSectorActivity().trim().isEmpty())
-                .collect(Collectors.groupingBy(offer::getSectorActivity, Collectors.counting()));
+    public List<Map<String, Object>> getTop5Sectors(OfferFilter filter) {
+        // Nombre d'offres par secteur d'activité (secteurs vides exclus) ; en SQL, la base ne renvoie que les 5 premiers
+        Map<String, Long> sectorCounts;
+        if (!filter.isEmpty()) {
+            sectorCounts = sliceCounts(filter, OfferDataCube.Dimension.SECTOR).get(OfferDataCube.Dimension.SECTOR);
+        } else {
+            sectorCounts = sqlSource
+                    ? toCounts(offerRepository.countBySector(PageRequest.ofSize(5)))
+                    : counters.getSectorCounts();
+        }
+        return top5SectorsChart(sectorCounts);
+    }
 
-        // Convertir la map en liste de Map<String, Object>, trier et prendre les 5 premiers
+    // Convertir la map en liste de Map<String, Object>, trier et prendre les 5 premiers
+    private static List<Map<String, Object>> top5SectorsChart(Map<String, Long> sectorCounts) {
         List<Map<String, Object>> topSectors = sectorCounts.entrySet().stream()
                 .map(entry -> {
                     Map<String, Object> sectorData = new HashMap<>();
@@ -47,22 +135,75 @@ public class StatisticsService {
         return topSectors;
     }
 
-    public List<Map<String, Object>> getOffersByModality() {
-        List<offer> allOffers = offerRepository.findAll();
+    /**
+     * Les compétences, entreprises ou intitulés de poste les plus fréquents (field = "skills", "companies" ou
+     * "titles"), en nombre d'offres ; au plus OfferTopTerms.MAX_TOP.
+     * @return Une liste de Map<String, Object> contenant "name" (String) et "count" (Long), du plus fréquent au moins
+     * fréquent. En mémoire, les comptes sont estimés (jamais inférieurs au compte exact).
+     */
+    public List<Map<String, Object>> getTopTerms(String field, int limit) {
+        OfferTopTerms.Field topField = OfferTopTerms.Field.fromParam(field);
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        limit = Math.min(limit, OfferTopTerms.MAX_TOP);
+        if (!sqlSource) {
+            return topTerms.top(topField, limit);
+        }
+
+        Map<String, Long> counts;
+        if (topField == OfferTopTerms.Field.SKILL) {
+            // Les compétences sont découpées en Java : seule la colonne skills est lue
+            Map<String, Long> skillCounts = new HashMap<>();
+            Map<String, String> skillNames = new HashMap<>();
+            for (String skills : offerRepository.findAllSkills()) {
+                Set<String> offerSkills = new HashSet<>();
+                for (String skill : skills.split("\\s+-\\s+")) {
+                    String name = skill.trim().replaceAll("\\s+", " ");
+                    String key = removeAccents(name).toLowerCase();
+                    if (!key.isEmpty() && offerSkills.add(key)) {
+                        skillNames.putIfAbsent(key, name);
+                        skillCounts.merge(key, 1L, Long::sum);
+                    }
+                }
+            }
+            counts = new HashMap<>();
+            skillCounts.forEach((key, count) -> counts.put(skillNames.get(key), count));
+        } else {
+            PageRequest top = PageRequest.ofSize(limit);
+            counts = toCounts(topField == OfferTopTerms.Field.COMPANY
+                    ? offerRepository.countByCompany(top) : offerRepository.countByTitle(top));
+        }
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(entry -> {
+                    Map<String, Object> termData = new LinkedHashMap<>();
+                    termData.put("name", entry.getKey());
+                    termData.put("count", entry.getValue());
+                    return termData;
+                })
+                .collect(Collectors.toList());
+    }
+
+    public List<Map<String, Object>> getOffersByModality(OfferFilter filter) {
+        if (!filter.isEmpty()) {
+            return modalityChart(sliceCounts(filter, OfferDataCube.Dimension.MODALITY).get(OfferDataCube.Dimension.MODALITY));
+        }
+        return modalityChart(sqlSource ? toCounts(offerRepository.countByModality()) : counters.getModalityCounts());
+    }
 
+    private static List<Map<String, Object>> modalityChart(Map<String, Long> counts) {
         // Initialiser les comptes pour les modalités connues à 0
         Map<String, Long> modalityCounts = new HashMap<>();
         modalityCounts.put("OnSite", 0L);
         modalityCounts.put("Remote", 0L);
         modalityCounts.put("Hybrid", 0L);
 
-        allOffers.forEach(offer -> {
-            String modality = String.valueOf(offer.getModality());
-            if (modality != null && !modality.trim().isEmpty()) {
-                // S'assurer que la modalité est l'une de celles attendues
-                if (modalityCounts.containsKey(modality)) {
-                    modalityCounts.put(modality, modalityCounts.get(modality) + 1);
-                }
+        counts.forEach((modality, count) -> {
+            // S'assurer que la modalité est l'une de celles attendues
+            if (modalityCounts.containsKey(modality)) {
+                modalityCounts.put(modality, count);
             }
         });
 
@@ -79,7 +220,7 @@ public class StatisticsService {
         return chartData;
     }
 
-    private String normalizeStudyLevel(String level) {
+    private static String normalizeStudyLevel(String level) {
         if (level == null || level.trim().isEmpty()) {
             return null;
         }
@@ -141,35 +282,48 @@ public class StatisticsService {
     }
 
 
-    public List<Map<String, Object>> getOffersByStudyLevel() {
-        List<offer> allOffers = offerRepository.findAll();
-
-        Map<String, Long> studyLevelCounts = new HashMap<>();
-
-        allOffers.forEach(offer -> {
-            String rawStudyLevel = offer.getStudyLevel(); // Assurez-vous que c'est le bon getter
-            if (rawStudyLevel != null) {
-                // Diviser la chaîne par des délimiteurs communs pour traiter plusieurs niveaux (ex: "bac+2, bac+3")
-                List<String> levelsArray = Arrays.stream(rawStudyLevel.split("[,&/]|et plus|or"))
-                        .map(String::trim)
-                        .collect(Collectors.toList());
-
-                levelsArray.forEach(levelPart -> {
-                    String normalized = normalizeStudyLevel(levelPart);
-                    if (normalized != null) { // Si normalized est null, c'est une entrée à ignorer
-                        studyLevelCounts.put(normalized, studyLevelCounts.getOrDefault(normalized, 0L) + 1);
-                    }
-                });
+    /**
+     * Extrait les niveaux d'étude normalisés d'une valeur brute (ex: "bac+2, bac+3").
+     * Chaque niveau n'apparaît qu'une fois, comme dans offer.study_level_mask ; les parties non reconnues sont ignorées.
+     */
+    public static List<String> studyLevelsOf(String rawStudyLevel) {
+        List<String> levels = new ArrayList<>();
+        if (rawStudyLevel != null) {
+            // Diviser la chaîne par des délimiteurs communs pour traiter plusieurs niveaux (ex: "bac+2, bac+3")
+            for (String levelPart : rawStudyLevel.split("[,&/]|et plus|or")) {
+                String normalized = normalizeStudyLevel(levelPart.trim());
+                if (normalized != null && !levels.contains(normalized)) { // Si normalized est null, c'est une entrée à ignorer
+                    levels.add(normalized);
+                }
             }
-        });
+        }
+        return levels;
+    }
 
-        // Définir l'ordre souhaité des catégories pour le graphique (identique au frontend)
-        List<String> desiredOrder = Arrays.asList(
-                "Autodidacte", "< Bac", "Bac", "Bac+1", "Bac+2", "Bac+3", "Bac+4", "Bac+5 et plus"
-        );
+    public List<Map<String, Object>> getOffersByStudyLevel(OfferFilter filter) {
+        Map<String, Long> studyLevelCounts;
+        if (!filter.isEmpty()) {
+            studyLevelCounts = sliceCounts(filter, OfferDataCube.Dimension.STUDY_LEVEL).get(OfferDataCube.Dimension.STUDY_LEVEL);
+        } else if (sqlSource) {
+            // La base compte les offres par masque de niveaux (au plus 2^8 lignes), chaque bit levé compte pour son niveau ;
+            // les offres dont les colonnes dérivées ne sont pas encore calculées sont normalisées en Java
+            studyLevelCounts = new HashMap<>();
+            for (Object[] row : offerRepository.countByStudyLevelMask()) {
+                long count = (Long) row[1];
+                studyLevelsOfMask((Integer) row[0]).forEach(level -> studyLevelCounts.merge(level, count, Long::sum));
+            }
+            for (String studyLevel : offerRepository.findStudyLevelsWithoutDerivedColumns()) {
+                studyLevelsOf(studyLevel).forEach(normalized -> studyLevelCounts.merge(normalized, 1L, Long::sum));
+            }
+        } else {
+            studyLevelCounts = counters.getStudyLevelCounts();
+        }
+        return studyLevelChart(studyLevelCounts);
+    }
 
+    private static List<Map<String, Object>> studyLevelChart(Map<String, Long> studyLevelCounts) {
         // Construire le tableau final pour le graphique en respectant l'ordre
-        List<Map<String, Object>> chartData = desiredOrder.stream()
+        List<Map<String, Object>> chartData = STUDY_LEVELS.stream()
                 .map(name -> {
                     Map<String, Object> data = new HashMap<>();
                     data.put("name", name);
@@ -181,7 +335,11 @@ public class StatisticsService {
         return chartData;
     }
 
-    private String removeAccents(String str) {
+    /**
+     * Supprime les accents et ligatures d'une chaîne (ex: "Fès" -> "Fes").
+     * Également utilisée par l'index de recherche des offres.
+     */
+    public static String removeAccents(String str) {
         if (str == null) {
             return null;
         }
@@ -196,204 +354,139 @@ public class StatisticsService {
         return cleaned;
     }
 
-    private String normalizeRegion(String location) {
-        if (location == null || location.trim().isEmpty()) {
-            return "Non spécifié";
-        }
-
-        // Apply removeAccents and trim() after toLowerCase()
-        String cleanedLocation = removeAccents(location).toLowerCase().trim();
-
-        // -- Traiter les cas génériques ou non pertinents en premier --
-        if (
-                cleanedLocation.contains("international") ||
-                        cleanedLocation.equals("maroc") ||
-                        cleanedLocation.contains("tout le maroc") ||
-                        cleanedLocation.contains("plusieurs villes") ||
-                        cleanedLocation.contains("service client") ||
-                        cleanedLocation.contains("teletravail") ||
-                        cleanedLocation.equals("tele travail") ||
-                        cleanedLocation.equals("remote") ||
-                        cleanedLocation.equals("hybrid") ||
-                        cleanedLocation.equals("on site") ||
-                        cleanedLocation.equals("on-site") ||
-                        cleanedLocation.equals("a distance") ||
-                        cleanedLocation.contains("toute le maroc") ||
-                        cleanedLocation.contains("tous le maroc")
-        ) {
-            return "Non spécifié";
-        }
-
-        Map<String, String> moroccanRegionNamesDisplay = new HashMap<>();
-        moroccanRegionNamesDisplay.put("tanger-tetouan-al hoceima", "Tanger-Tétouan-Al Hoceïma");
-        moroccanRegionNamesDisplay.put("l'oriental", "L'Oriental");
-        moroccanRegionNamesDisplay.put("fes-meknes", "Fès-Meknès");
-        moroccanRegionNamesDisplay.put("rabat-sale-kenitra", "Rabat-Salé-Kénitra");
-        moroccanRegionNamesDisplay.put("beni mellal-khenifra", "Béni Mellal-Khénifra");
-        moroccanRegionNamesDisplay.put("casablanca-settat", "Casablanca-Settat");
-        moroccanRegionNamesDisplay.put("marrakech-safi", "Marrakech-Safi");
-        moroccanRegionNamesDisplay.put("draa-tafilalet", "Drâa-Tafilalet");
-        moroccanRegionNamesDisplay.put("souss-massa", "Souss-Massa");
-        moroccanRegionNamesDisplay.put("guelmim-oued noun", "Guelmim-Oued Noun");
-        moroccanRegionNamesDisplay.put("laayoune-sakia el hamra", "Laâyoune-Sakia El Hamra");
-        moroccanRegionNamesDisplay.put("dakhla-oued ed-dahab", "Dakhla-Oued Ed-Dahab");
-
-        for (Map.Entry<String, String> entry : moroccanRegionNamesDisplay.entrySet()) {
-            if (cleanedLocation.contains(entry.getKey())) {
-                return entry.getValue();
+    /**
+     * Associe une localisation brute (ex: "Casablanca - Mohammedia") aux régions du Maroc.
+     * Chaque partie reconnue donne une région (une région peut donc apparaître plusieurs fois).
+     * Une localisation vide ou générique ("Maroc", "Télétravail"...) donne "Non spécifié".
+     * @return la liste des régions, vide si aucune partie n'est reconnue alors que la localisation complète l'est.
+     */
+    public static List<String> regionsOf(String rawLocation) {
+        List<String> regions = new ArrayList<>();
+        if (rawLocation == null || rawLocation.trim().isEmpty()) {
+            // If rawLocation is null or empty, count it directly as 'Non spécifié'
+            regions.add(NON_SPECIFIE);
+            return regions;
+        }
+        // Split the location string by common delimiters, then clean and normalize each part
+        List<String> locationParts = Arrays.stream(rawLocation.split("[ -]+|,\\s*|\\s*-\\s*|/|\\s*et\\s*")) // Regex for common delimiters
+                .map(String::trim)
+                .filter(part -> !part.isEmpty())
+                .collect(Collectors.toList());
+
+        for (String part : locationParts) {
+            String normalizedRegion = RegionMatcher.normalize(part);
+            if (normalizedRegion != null && !normalizedRegion.equals(NON_SPECIFIE)) {
+                regions.add(normalizedRegion);
             }
         }
 
-        // Mapping des villes/zones aux 12 régions du Maroc (mots-clés également en non-accentué)
-        if (cleanedLocation.contains("tanger") ||
-                cleanedLocation.contains("tetouan") ||
-                cleanedLocation.contains("al hoceima") ||
-                cleanedLocation.contains("larache") ||
-                cleanedLocation.contains("chefchaouen") ||
-                cleanedLocation.contains("m'diq") ||
-                cleanedLocation.contains("fnideq") ||
-                cleanedLocation.contains("ouezzane") ||
-                cleanedLocation.contains("martil") ||
-                cleanedLocation.contains("asilah") ||
-                cleanedLocation.contains("el houceima")
-        ) {
-            return "Tanger-Tétouan-Al Hoceïma";
-        }
-        if (cleanedLocation.contains("oujda") ||
-                cleanedLocation.contains("nador") ||
-                cleanedLocation.contains("berkane") ||
-                cleanedLocation.contains("taourirt") ||
-                cleanedLocation.contains("jerada") ||
-                cleanedLocation.contains("figuig") ||
-                cleanedLocation.contains("driouch") ||
-                cleanedLocation.contains("guercif")
-        ) {
-            return "L'Oriental";
-        }
-        if (cleanedLocation.contains("fes") ||
-                cleanedLocation.contains("meknes") ||
-                cleanedLocation.contains("ifrane") ||
-                cleanedLocation.contains("sidi kacem") ||
-                cleanedLocation.contains("taza") ||
-                cleanedLocation.contains("boulemane") ||
-                cleanedLocation.contains("el hajeb") ||
-                cleanedLocation.contains("khemisset") ||
-                cleanedLocation.contains("moulay yaacoub") ||
-                cleanedLocation.contains("sefrou")
-        ) {
-            return "Fès-Meknès";
-        }
-        if (cleanedLocation.contains("rabat") ||
-                cleanedLocation.contains("sale") ||
-                cleanedLocation.contains("kenitra") ||
-                cleanedLocation.contains("skhirat") ||
-                cleanedLocation.contains("temara") ||
-                cleanedLocation.contains("khemisset") ||
-                cleanedLocation.contains("sidi slimane") ||
-                cleanedLocation.contains("sidi yahya el gharb") ||
-                cleanedLocation.contains("ain aouda") ||
-                cleanedLocation.contains("ain atiq") ||
-                cleanedLocation.contains("bouznika") ||
-                cleanedLocation.contains("sala al jadida") ||
-                cleanedLocation.contains("belksiri") ||
-                cleanedLocation.contains("tiflet") ||
-                cleanedLocation.contains("moulay bousselham") ||
-                cleanedLocation.contains("technopolis") ||
-                cleanedLocation.contains("ain el aouda") ||
-                cleanedLocation.contains("sidi allal bahraoui") ||
-                cleanedLocation.contains("skhrirat")
-        ) {
-            return "Rabat-Salé-Kénitra";
+        // If no specific region was found for any part, count it as 'Non spécifié'
+        // when the whole location is generic too. This handles "international", "maroc", etc.
+        if (regions.isEmpty() && RegionMatcher.normalize(rawLocation).equals(NON_SPECIFIE)) {
+            regions.add(NON_SPECIFIE);
         }
-        if (cleanedLocation.contains("beni mellal") ||
-                cleanedLocation.contains("khenifra") ||
-                cleanedLocation.contains("fquih ben salah") ||
-                cleanedLocation.contains("azilal") ||
-                cleanedLocation.contains("khouribga")
-        ) {
-            return "Béni Mellal-Khénifra";
-        }
-        if (cleanedLocation.contains("casablanca") ||
-                cleanedLocation.contains("mohammedia") ||
-                cleanedLocation.contains("settat") ||
-                cleanedLocation.contains("el jadida") ||
-                cleanedLocation.contains("sidi bennour") ||
-                cleanedLocation.contains("berrechid") ||
-                cleanedLocation.contains("nouaceur") ||
-                cleanedLocation.contains("mediouna") ||
-                cleanedLocation.contains("ben slimane") ||
-                cleanedLocation.contains("had soualem") ||
-                cleanedLocation.contains("bouskoura") ||
-                cleanedLocation.contains("sidi rahhal") ||
-                cleanedLocation.contains("tit mellil") ||
-                cleanedLocation.contains("jorf lasfar") ||
-                cleanedLocation.contains("casabanca") ||
-                cleanedLocation.contains("ain sbaa") ||
-                cleanedLocation.contains("dar bouazza")
-        ) {
-            return "Casablanca-Settat";
-        }
-        if (cleanedLocation.contains("marrakech") ||
-                cleanedLocation.contains("safi") ||
-                cleanedLocation.contains("essaouira") ||
-                cleanedLocation.contains("kelaa sraghna") ||
-                cleanedLocation.contains("chichaoua") ||
-                cleanedLocation.contains("youssoufia") ||
-                cleanedLocation.contains("rehamna") ||
-                cleanedLocation.contains("sebt gzoula") ||
-                cleanedLocation.contains("benguerir") ||
-                cleanedLocation.contains("imintanoute")
-        ) {
-            return "Marrakech-Safi";
-        }
-        if (cleanedLocation.contains("errachidia") ||
-                cleanedLocation.contains("ouarzazate") ||
-                cleanedLocation.contains("zagora") ||
-                cleanedLocation.contains("tinghir") ||
-                cleanedLocation.contains("midelt") ||
-                cleanedLocation.contains("region draa tafilalet") ||
-                cleanedLocation.contains("el jorf")
-        ) {
-            return "Drâa-Tafilalet";
-        }
-        if (cleanedLocation.contains("agadir") ||
-                cleanedLocation.contains("inezgane") ||
-                cleanedLocation.contains("tiznit") ||
-                cleanedLocation.contains("taroudant") ||
-                cleanedLocation.contains("chtouka ait baha") ||
-                cleanedLocation.contains("ait melloul") ||
-                cleanedLocation.contains("sidi ifni") ||
-                cleanedLocation.contains("tata") ||
-                cleanedLocation.contains("taliouine") ||
-                cleanedLocation.contains("inzegane") ||
-                cleanedLocation.contains("dcheira") ||
-                cleanedLocation.contains("oulad teima")
-        ) {
-            return "Souss-Massa";
+        return regions;
+    }
+
+    /**
+     * Région principale d'une localisation : la première région reconnue par regionsOf, sinon "Non spécifié".
+     * @return l'indice de la région dans MOROCCAN_REGIONS (valeur de la colonne offer.region_id).
+     */
+    public static int regionIdOf(String rawLocation) {
+        List<String> regions = regionsOf(rawLocation);
+        return MOROCCAN_REGIONS.indexOf(regions.isEmpty() ? NON_SPECIFIE : regions.get(0));
+    }
+
+    /**
+     * Niveaux d'étude d'une valeur brute sous forme de masque : le bit i est levé si STUDY_LEVELS.get(i)
+     * est mentionné (valeur de la colonne offer.study_level_mask).
+     */
+    public static int studyLevelMaskOf(String rawStudyLevel) {
+        int mask = 0;
+        for (String level : studyLevelsOf(rawStudyLevel)) {
+            mask |= 1 << STUDY_LEVELS.indexOf(level);
         }
-        if (cleanedLocation.contains("guelmim") ||
-                cleanedLocation.contains("tan-tan") ||
-                cleanedLocation.contains("assah") ||
-                cleanedLocation.contains("smara") ||
-                cleanedLocation.contains("boujdour")
-        ) {
-            return "Guelmim-Oued Noun";
+        return mask;
+    }
+
+    /** Niveaux d'étude d'un masque de studyLevelMaskOf, dans l'ordre de STUDY_LEVELS. */
+    public static List<String> studyLevelsOfMask(int mask) {
+        List<String> levels = new ArrayList<>();
+        for (int i = 0; i < STUDY_LEVELS.size(); i++) {
+            if ((mask & 1 << i) != 0) {
+                levels.add(STUDY_LEVELS.get(i));
+            }
         }
-        if (cleanedLocation.contains("laayoune") ||
-                cleanedLocation.contains("smara") ||
-                cleanedLocation.contains("boujdour") ||
-                cleanedLocation.contains("tarfaya")
-        ) {
-            return "Laâyoune-Sakia El Hamra";
+        return levels;
+    }
+
+    /** Années d'expérience demandées ; null = inconnu (min) ou sans limite (max). */
+    public record ExperienceRange(Integer minYears, Integer maxYears) {
+    }
+
+    private static final Pattern YEARS = Pattern.compile("\\d+");
+
+    /**
+     * Interprète une expérience brute ("From 3 to 5 years", "Expérience entre 2 ans et 5 ans et plus",
+     * "Débutant < 2 ans", "Etudiant, jeune diplômé"...) : le minimum et le maximum des années citées,
+     * 0 pour les débutants et étudiants, et pas de maximum pour "et plus" / "> 10 ans".
+     */
+    public static ExperienceRange experienceRangeOf(String rawExperience) {
+        if (rawExperience == null || rawExperience.isBlank()) {
+            return new ExperienceRange(null, null);
         }
-        if (cleanedLocation.contains("dakhla") ||
-                cleanedLocation.contains("aousserd")
-        ) {
-            return "Dakhla-Oued Ed-Dahab";
+        String experience = removeAccents(rawExperience).toLowerCase(Locale.ROOT);
+        boolean student = experience.contains("etudiant") || experience.contains("jeune diplome") || experience.contains("student");
+        boolean beginner = experience.contains("debutant") || experience.contains("beginner");
+
+        Integer min = student || beginner || experience.contains("<") || experience.contains("less than") ? 0 : null;
+        Integer max = student ? 0 : null;
+        if (beginner) {
+            max = 2; // "Débutant" = moins de 2 ans sur emploi.ma
+        }
+        Matcher years = YEARS.matcher(experience);
+        while (years.find()) {
+            int value = Integer.parseInt(years.group());
+            min = min == null ? value : Math.min(min, value);
+            max = max == null ? value : Math.max(max, value);
+        }
+        if (experience.contains("et plus") || experience.contains(">") || experience.contains("+")) {
+            max = null;
+        }
+        return new ExperienceRange(min, max);
+    }
+
+    /** Tranches d'expérience du filtre experience de /offers/filter : [0, 2[, [2, 5[, [5, 10[ et 10 ans et plus. */
+    public static final List<String> EXPERIENCE_RANGES = List.of("0-2", "2-5", "5-10", "10+");
+    private static final int[] EXPERIENCE_RANGE_STARTS = {0, 2, 5, 10};
+
+    /**
+     * Tranches d'EXPERIENCE_RANGES qui recoupent l'expérience demandée (colonnes experience_min_years et
+     * experience_max_years), lue comme [min, max[ à la manière des tranches : "entre 2 ans et 5 ans" est dans 2-5
+     * seulement, "Etudiant" (0 à 0) dans 0-2. Aucune si le minimum est inconnu.
+     */
+    public static List<String> experienceRangesOf(Integer minYears, Integer maxYears) {
+        List<String> ranges = new ArrayList<>();
+        if (minYears == null) {
+            return ranges;
+        }
+        int end = maxYears == null ? Integer.MAX_VALUE : Math.max(maxYears, minYears + 1);
+        for (int i = 0; i < EXPERIENCE_RANGES.size(); i++) {
+            int rangeEnd = i + 1 < EXPERIENCE_RANGE_STARTS.length ? EXPERIENCE_RANGE_STARTS[i + 1] : Integer.MAX_VALUE;
+            if (minYears < rangeEnd && end > EXPERIENCE_RANGE_STARTS[i]) {
+                ranges.add(EXPERIENCE_RANGES.get(i));
+            }
         }
+        return ranges;
+    }
 
-        System.err.println("Région non reconnue pour la localisation: " + location);
-        return "Non spécifié";
+    /** Renseigne les colonnes dérivées de l'offre (région principale, masque des niveaux d'étude, années d'expérience). */
+    public static void fillDerivedColumns(offer offer) {
+        offer.setRegionId(regionIdOf(offer.getLocation()));
+        offer.setStudyLevelMask(studyLevelMaskOf(offer.getStudyLevel()));
+        ExperienceRange experience = experienceRangeOf(offer.getExperience());
+        offer.setExperienceMinYears(experience.minYears());
+        offer.setExperienceMaxYears(experience.maxYears());
     }
 
     /**
@@ -401,95 +494,486 @@ public class StatisticsService {
      * La logique de normalisation des régions est déplacée du frontend.
      * @return Une liste de Map<String, Object> où chaque map contient "name" (nom de la région) et "count" (nombre d'offres).
      */
-    public List<Map<String, Object>> getOffersByRegion() {
-        List<offer> allOffers = offerRepository.findAll();
-
-        Map<String, Long> regionCounts = new HashMap<>();
-        List<String> moroccanRegions = Arrays.asList(
-                "Tanger-Tétouan-Al Hoceïma", "L'Oriental", "Fès-Meknès",
-                "Rabat-Salé-Kénitra", "Béni Mellal-Khénifra", "Casablanca-Settat",
-                "Marrakech-Safi", "Drâa-Tafilalet", "Souss-Massa",
-                "Guelmim-Oued Noun", "Laâyoune-Sakia El Hamra", "Dakhla-Oued Ed-Dahab",
-                "Non spécifié" // Inclure cette catégorie pour les non-spécifiés ou non reconnus
-        );
-        moroccanRegions.forEach(region -> regionCounts.put(region, 0L)); // Initialize all regions to 0
-
-        allOffers.forEach(offer -> {
-            String rawLocation = offer.getLocation(); // Assurez-vous que c'est le bon getter
-            if (rawLocation != null && !rawLocation.trim().isEmpty()) {
-                // Split the location string by common delimiters, then clean and normalize each part
-                List<String> locationParts = Arrays.stream(rawLocation.split("[ -]+|,\\s*|\\s*-\\s*|/|\\s*et\\s*")) // Regex for common delimiters
-                        .map(String::trim)
-                        .filter(part -> !part.isEmpty())
-                        .collect(Collectors.toList());
-
-                boolean foundRegionForOffer = false;
-
-                if (!locationParts.isEmpty()) {
-                    for (String part : locationParts) {
-                        String normalizedRegion = normalizeRegion(part);
-                        if (normalizedRegion != null && !normalizedRegion.equals("Non spécifié")) {
-                            regionCounts.put(normalizedRegion, regionCounts.getOrDefault(normalizedRegion, 0L) + 1);
-                            foundRegionForOffer = true;
-                        }
-                    }
-                }
-
-                // If no specific region was found for any part, or if the original rawLocation was empty/null,
-                // count it as 'Non spécifié'. This handles "international", "maroc", etc.
-                if (!foundRegionForOffer && (rawLocation.trim().isEmpty() || normalizeRegion(rawLocation).equals("Non spécifié"))) {
-                    regionCounts.put("Non spécifié", regionCounts.getOrDefault("Non spécifié", 0L) + 1);
-                }
-            } else {
-                // If rawLocation is null or empty, count it directly as 'Non spécifié'
-                regionCounts.put("Non spécifié", regionCounts.getOrDefault("Non spécifié", 0L) + 1);
+    public List<Map<String, Object>> getOffersByRegion(OfferFilter filter) {
+        Map<String, Long> regionCounts;
+        if (!filter.isEmpty()) {
+            regionCounts = sliceCounts(filter, OfferDataCube.Dimension.REGION).get(OfferDataCube.Dimension.REGION);
+        } else if (sqlSource) {
+            // Une offre compte pour chaque région citée dans sa localisation, pas seulement pour sa région principale
+            // (region_id) : la base compte les offres par localisation, chaque localisation distincte est normalisée une fois
+            regionCounts = new HashMap<>();
+            for (Object[] row : offerRepository.countByLocation()) {
+                long count = (Long) row[1];
+                regionsOf((String) row[0]).forEach(region -> regionCounts.merge(region, count, Long::sum));
             }
-        });
+        } else {
+            regionCounts = counters.getRegionCounts();
+        }
+        return regionChart(regionCounts);
+    }
 
+    private static List<Map<String, Object>> regionChart(Map<String, Long> regionCounts) {
         // Convert map to list, filter out regions with 0 count unless it's "Non spécifié"
-        List<Map<String, Object>> chartData = moroccanRegions.stream()
+        List<Map<String, Object>> chartData = MOROCCAN_REGIONS.stream()
                 .map(regionName -> {
                     Map<String, Object> data = new HashMap<>();
                     data.put("name", regionName);
                     data.put("count", regionCounts.getOrDefault(regionName, 0L));
                     return data;
                 })
-                .filter(item -> (Long) item.get("count") > 0 || "Non spécifié".equals(item.get("name"))) // Keep if count > 0 or if it's "Non spécifié"
+                .filter(item -> (Long) item.get("count") > 0 || NON_SPECIFIE.equals(item.get("name"))) // Keep if count > 0 or if it's "Non spécifié"
                 .collect(Collectors.toList());
 
         return chartData;
     }
 
-//    public List<Map<String, Object>> getMonthlyOfferCountsForYear(int year) {
-//        List<offer> allOffers = offerRepository.findAll();
-//
-//        Map<Integer, Long> monthlyCounts = new HashMap<>();
-//        // Initialize counts for all 12 months to 0 (month index 0-11)
-//        for (int i = 0; i < 12; i++) {
-//            monthlyCounts.put(i, 0L);
-//        }
-//
-//        allOffers.stream()
-//                .filter(offer -> offer.getDatePublication() != null)
-//                .forEach(offer -> {
-//                    // Directly use the LocalDate returned by getDatePublication()
-//                    LocalDate publicationDate = offer.getDatePublication(); // <<< This is the fix
-//
-//                    if (publicationDate.getYear() == year) {
-//                        int monthIndex = publicationDate.getMonthValue() - 1; // MonthValue is 1-12, we need 0-11
-//                        monthlyCounts.put(monthIndex, monthlyCounts.getOrDefault(monthIndex, 0L) + 1);
-//                    }
-//                });
-//
-//        // Convert map to list for Recharts, ensuring correct order (January to December)
-//        return monthlyCounts.entrySet().stream()
-//                .sorted(Map.Entry.comparingByKey()) // Sort by month index (0-11)
-//                .map(entry -> {
-//                    Map<String, Object> monthData = new HashMap<>();
-//                    monthData.put("monthIndex", entry.getKey());
-//                    monthData.put("count", entry.getValue());
-//                    return monthData;
-//                })
-//                .collect(Collectors.toList());
-//    }
+    /**
+     * Les quatre graphiques du tableau de bord admin en une seule réponse : "sectors" (getTop5Sectors),
+     * "modality" (getOffersByModality), "studyLevel" (getOffersByStudyLevel) et "region" (getOffersByRegion).
+     * En SQL, la base compte les offres par combinaison des quatre colonnes utiles (niveaux d'étude lus dans
+     * study_level_mask) en une seule requête, et ces lignes sont agrégées en parallèle.
+     * Avec des filtres, les quatre répartitions sont lues dans le cube en un seul passage.
+     */
+    public Map<String, Object> getDashboard(OfferFilter filter) {
+        DashboardCounts dashboardCounts;
+        if (!filter.isEmpty()) {
+            Map<OfferDataCube.Dimension, Map<String, Long>> counts = sliceCounts(filter, OfferDataCube.Dimension.SECTOR,
+                    OfferDataCube.Dimension.MODALITY, OfferDataCube.Dimension.STUDY_LEVEL, OfferDataCube.Dimension.REGION);
+            dashboardCounts = new DashboardCounts(counts.get(OfferDataCube.Dimension.SECTOR),
+                    counts.get(OfferDataCube.Dimension.MODALITY), counts.get(OfferDataCube.Dimension.STUDY_LEVEL),
+                    counts.get(OfferDataCube.Dimension.REGION));
+        } else if (sqlSource) {
+            // Agrégats partiels par tâche du ForkJoinPool commun, fusionnés à la fin
+            dashboardCounts = offerRepository.countDashboardFacts().parallelStream()
+                    .collect(Collector.of(DashboardCounts::new, DashboardCounts::addCounted, DashboardCounts::merge));
+            // Offres dont les colonnes dérivées ne sont pas encore calculées
+            offerRepository.findDashboardFactsWithoutDerivedColumns().forEach(dashboardCounts::addRaw);
+        } else {
+            dashboardCounts = new DashboardCounts(counters.getSectorCounts(), counters.getModalityCounts(),
+                    counters.getStudyLevelCounts(), counters.getRegionCounts());
+        }
+
+        Map<String, Object> dashboard = new LinkedHashMap<>();
+        dashboard.put("sectors", top5SectorsChart(dashboardCounts.sectors()));
+        dashboard.put("modality", modalityChart(dashboardCounts.modalities()));
+        dashboard.put("studyLevel", studyLevelChart(dashboardCounts.studyLevels()));
+        dashboard.put("region", regionChart(dashboardCounts.regions()));
+        return dashboard;
+    }
+
+    // Comptes des quatre graphiques, mêmes règles de comptage que OfferStatisticsCounters
+    private record DashboardCounts(Map<String, Long> sectors, Map<String, Long> modalities,
+                                   Map<String, Long> studyLevels, Map<String, Long> regions) {
+        DashboardCounts() {
+            this(new HashMap<>(), new HashMap<>(), new HashMap<>(), new HashMap<>());
+        }
+
+        // Ligne (sector_activity, modality, study_level_mask, location, nombre d'offres) de countDashboardFacts
+        void addCounted(Object[] facts) {
+            add((String) facts[0], facts[1], studyLevelsOfMask((Integer) facts[2]), (String) facts[3], (Long) facts[4]);
+        }
+
+        // Ligne (sector_activity, modality, study_level, location) de findDashboardFactsWithoutDerivedColumns
+        void addRaw(Object[] facts) {
+            add((String) facts[0], facts[1], studyLevelsOf((String) facts[2]), (String) facts[3], 1);
+        }
+
+        private void add(String sector, Object modality, List<String> levels, String location, long count) {
+            if (sector != null && !sector.trim().isEmpty()) {
+                sectors.merge(sector, count, Long::sum);
+            }
+            modalities.merge(String.valueOf(modality), count, Long::sum);
+            levels.forEach(level -> studyLevels.merge(level, count, Long::sum));
+            regionsOf(location).forEach(region -> regions.merge(region, count, Long::sum));
+        }
+
+        DashboardCounts merge(DashboardCounts other) {
+            other.sectors.forEach((name, count) -> sectors.merge(name, count, Long::sum));
+            other.modalities.forEach((name, count) -> modalities.merge(name, count, Long::sum));
+            other.studyLevels.forEach((name, count) -> studyLevels.merge(name, count, Long::sum));
+            other.regions.forEach((name, count) -> regions.merge(name, count, Long::sum));
+            return this;
+        }
+    }
+
+    /**
+     * Répartitions des offres retenues par le filtre, lues dans le cube des offres (OfferDataCube) : celui maintenu
+     * en mémoire, ou en SQL un cube construit à la volée à partir des seules colonnes utiles.
+     */
+    private Map<OfferDataCube.Dimension, Map<String, Long>> sliceCounts(OfferFilter filter, OfferDataCube.Dimension... breakdowns) {
+        if (filter.region() != null && !MOROCCAN_REGIONS.contains(filter.region())) {
+            throw new IllegalArgumentException("Unknown region: " + filter.region());
+        }
+        if (filter.studyLevel() != null && !STUDY_LEVELS.contains(filter.studyLevel())) {
+            throw new IllegalArgumentException("Unknown study level: " + filter.studyLevel());
+        }
+        if (filter.modality() != null && Arrays.stream(Modality.values()).noneMatch(m -> m.name().equals(filter.modality()))) {
+            throw new IllegalArgumentException("Unknown modality: " + filter.modality());
+        }
+        if (filter.from() != null && filter.to() != null && filter.from().isAfter(filter.to())) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+
+        Map<OfferDataCube.Dimension, Predicate<String>> filters = new EnumMap<>(OfferDataCube.Dimension.class);
+        if (filter.region() != null) {
+            filters.put(OfferDataCube.Dimension.REGION, filter.region()::equals);
+        }
+        if (filter.sector() != null) {
+            filters.put(OfferDataCube.Dimension.SECTOR, filter.sector()::equals);
+        }
+        if (filter.modality() != null) {
+            filters.put(OfferDataCube.Dimension.MODALITY, filter.modality()::equals);
+        }
+        if (filter.studyLevel() != null) {
+            filters.put(OfferDataCube.Dimension.STUDY_LEVEL, filter.studyLevel()::equals);
+        }
+        if (filter.contractType() != null) {
+            filters.put(OfferDataCube.Dimension.CONTRACT_TYPE, filter.contractType()::equals);
+        }
+        if (filter.from() != null || filter.to() != null) {
+            // Les offres sans date de publication sont exclues dès qu'une borne est donnée
+            filters.put(OfferDataCube.Dimension.MONTH, value -> {
+                YearMonth month = YearMonth.parse(value);
+                return (filter.from() == null || !month.isBefore(filter.from()))
+                        && (filter.to() == null || !month.isAfter(filter.to()));
+            });
+        }
+
+        OfferDataCube cube = dataCube;
+        if (sqlSource) {
+            cube = new OfferDataCube();
+            List<Object[]> rows = offerRepository.findCubeFacts();
+            for (int i = 0; i < rows.size(); ) {
+                Object[] first = rows.get(i);
+                List<String> contractTypes = new ArrayList<>();
+                for (; i < rows.size() && rows.get(i)[0].equals(first[0]); i++) {
+                    if (rows.get(i)[6] != null) {
+                        contractTypes.add((String) rows.get(i)[6]);
+                    }
+                }
+                cube.add((Integer) first[0], (String) first[1], (String) first[2], String.valueOf(first[3]),
+                        (String) first[4], contractTypes, (LocalDate) first[5]);
+            }
+        }
+        return cube.count(Arrays.asList(breakdowns), filters);
+    }
+
+    // Lignes (valeur, COUNT) d'une requête d'agrégation -> comptes par nom, dans l'ordre de la requête
+    private static Map<String, Long> toCounts(List<Object[]> rows) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            counts.put(String.valueOf(row[0]), (Long) row[1]);
+        }
+        return counts;
+    }
+
+    /**
+     * Nombre d'offres publiées chaque mois d'une année (datePublication), de janvier (monthIndex 0) à décembre (11).
+     * @return Une liste de 12 Map<String, Object> contenant "monthIndex" (Integer) et "count" (Long).
+     */
+    public List<Map<String, Object>> getMonthlyOfferCountsForYear(int year) {
+        long[] counts = monthlyCounts(YearMonth.of(year, 1), YearMonth.of(year, 12), null).get(null);
+
+        // Liste ordonnée de janvier à décembre, pour Recharts
+        List<Map<String, Object>> monthlyData = new ArrayList<>();
+        for (int monthIndex = 0; monthIndex < 12; monthIndex++) {
+            Map<String, Object> monthData = new HashMap<>();
+            monthData.put("monthIndex", monthIndex);
+            monthData.put("count", counts[monthIndex]);
+            monthlyData.add(monthData);
+        }
+        return monthlyData;
+    }
+
+    /**
+     * Nombre d'offres publiées chaque mois de from à to (inclus), au plus MAX_MONTHS mois.
+     * Avec by = "sector" ou "region", chaque mois porte aussi sa répartition par secteur ou par région
+     * (mêmes règles de comptage que les graphiques par secteur et par région).
+     * @return Une liste de Map<String, Object> contenant "month" ("yyyy-MM"), "count" (Long) et, avec by,
+     * "breakdown" (nom -> Long, mêmes noms pour tous les mois).
+     */
+    public List<Map<String, Object>> getMonthlyOfferCounts(YearMonth from, YearMonth to, String by) {
+        if (by != null && !BY_SECTOR.equals(by) && !BY_REGION.equals(by)) {
+            throw new IllegalArgumentException("by must be '" + BY_SECTOR + "' or '" + BY_REGION + "', not: " + by);
+        }
+        Map<String, long[]> series = monthlyCounts(from, to, by);
+        long[] totals = series.remove(null);
+
+        // Ordre des séries : celui des régions, ou les secteurs par nombre d'offres décroissant
+        List<String> names = new ArrayList<>(series.keySet());
+        if (BY_REGION.equals(by)) {
+            names.sort(Comparator.comparingInt(MOROCCAN_REGIONS::indexOf));
+        } else {
+            names.sort(Comparator.comparingLong((String name) -> Arrays.stream(series.get(name)).sum()).reversed());
+        }
+
+        List<Map<String, Object>> monthlyData = new ArrayList<>();
+        for (int i = 0; i < totals.length; i++) {
+            Map<String, Object> monthData = new HashMap<>();
+            monthData.put("month", from.plusMonths(i).toString());
+            monthData.put("count", totals[i]);
+            if (by != null) {
+                Map<String, Long> breakdown = new LinkedHashMap<>();
+                for (String name : names) {
+                    breakdown.put(name, series.get(name)[i]);
+                }
+                monthData.put("breakdown", breakdown);
+            }
+            monthlyData.add(monthData);
+        }
+        return monthlyData;
+    }
+
+    /**
+     * Nombre d'offres publiées chaque jour de from à to (inclus), au plus MAX_DAYS jours.
+     * @return Une liste de Map<String, Object> contenant "date" ("yyyy-MM-dd") et "count" (Long).
+     */
+    public List<Map<String, Object>> getDailyOfferCounts(LocalDate from, LocalDate to) {
+        if (from.isAfter(to) || ChronoUnit.DAYS.between(from, to) >= MAX_DAYS) {
+            throw new IllegalArgumentException("from must be before to, and at most " + MAX_DAYS + " days apart");
+        }
+        long[] counts;
+        if (sqlSource) {
+            counts = new long[(int) ChronoUnit.DAYS.between(from, to) + 1];
+            for (Object[] facts : offerRepository.findPublicationFacts(from, to)) {
+                counts[(int) ChronoUnit.DAYS.between(from, (LocalDate) facts[0])]++;
+            }
+        } else {
+            counts = timeSeries.getDailyCounts(from, to);
+        }
+
+        List<Map<String, Object>> dailyData = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            Map<String, Object> dayData = new HashMap<>();
+            dayData.put("date", from.plusDays(i).toString());
+            dayData.put("count", counts[i]);
+            dailyData.add(dayData);
+        }
+        return dailyData;
+    }
+
+    // Comptes mensuels de from à to : le total sous la clé null, plus une série par secteur ou région selon by
+    private Map<String, long[]> monthlyCounts(YearMonth from, YearMonth to, String by) {
+        if (from.isAfter(to) || ChronoUnit.MONTHS.between(from, to) >= MAX_MONTHS) {
+            throw new IllegalArgumentException("from must be before to, and at most " + MAX_MONTHS + " months apart");
+        }
+        Map<String, long[]> series = new HashMap<>();
+        if (!sqlSource) {
+            if (BY_SECTOR.equals(by)) {
+                series.putAll(timeSeries.getMonthlyCountsBySector(from, to));
+            } else if (BY_REGION.equals(by)) {
+                series.putAll(timeSeries.getMonthlyCountsByRegion(from, to));
+            }
+            series.put(null, timeSeries.getMonthlyCounts(from, to));
+            return series;
+        }
+
+        // En SQL, seules les offres de la période sont lues ; les régions sont normalisées en Java
+        int length = (int) ChronoUnit.MONTHS.between(from, to) + 1;
+        long[] totals = new long[length];
+        for (Object[] facts : offerRepository.findPublicationFacts(from.atDay(1), to.atEndOfMonth())) {
+            int i = (int) ChronoUnit.MONTHS.between(from, YearMonth.from((LocalDate) facts[0]));
+            totals[i]++;
+            String sector = (String) facts[1];
+            if (BY_SECTOR.equals(by) && sector != null && !sector.trim().isEmpty()) {
+                series.computeIfAbsent(sector, name -> new long[length])[i]++;
+            } else if (BY_REGION.equals(by)) {
+                regionsOf((String) facts[2]).forEach(region -> series.computeIfAbsent(region, name -> new long[length])[i]++);
+            }
+        }
+        series.put(null, totals);
+        return series;
+    }
+
+    /**
+     * Quartiles et 90e centile du salaire de base des offres (salaire > 0), éventuellement filtrées par secteur,
+     * région principale et type de contrat (null = pas de filtre), calculés sur les sketches t-digest.
+     * @param groupBy null pour l'ensemble des offres retenues, sinon "sector", "region" ou "contractType".
+     * @return Une liste de Map<String, Object> contenant "name" (absent sans groupBy), "count" (Long),
+     * "p25", "median", "p75" et "p90" (Double), triée par région ou par nombre d'offres décroissant.
+     */
+    public List<Map<String, Object>> getSalaryStatistics(String groupBy, String sector, String region, String contractType) {
+        if (groupBy != null && !OfferSalaryDigests.BY_SECTOR.equals(groupBy) && !OfferSalaryDigests.BY_REGION.equals(groupBy)
+                && !OfferSalaryDigests.BY_CONTRACT_TYPE.equals(groupBy)) {
+            throw new IllegalArgumentException("Unknown salary breakdown: " + groupBy);
+        }
+        if (region != null && !MOROCCAN_REGIONS.contains(region)) {
+            throw new IllegalArgumentException("Unknown region: " + region);
+        }
+        OfferSalaryDigests digests = salaryDigests;
+        if (sqlSource) {
+            // En SQL, les sketches sont construits à la volée à partir des seules colonnes utiles
+            digests = new OfferSalaryDigests();
+            List<Object[]> rows = offerRepository.findSalaryFacts();
+            for (int i = 0; i < rows.size(); ) {
+                Object[] first = rows.get(i);
+                List<String> contractTypes = new ArrayList<>();
+                for (; i < rows.size() && rows.get(i)[0].equals(first[0]); i++) {
+                    if (rows.get(i)[5] != null) {
+                        contractTypes.add((String) rows.get(i)[5]);
+                    }
+                }
+                Integer regionId = (Integer) first[3];
+                digests.add((Integer) first[0], (Float) first[1], (String) first[2],
+                        regionId != null ? regionId : regionIdOf((String) first[4]), contractTypes);
+            }
+        }
+
+        List<Map<String, Object>> salaryData = new ArrayList<>();
+        digests.getQuantiles(groupBy, sector, region, contractType).forEach((name, quantiles) -> {
+            Map<String, Object> data = new HashMap<>();
+            if (groupBy != null) {
+                data.put("name", name);
+            }
+            data.put("count", quantiles.count());
+            data.put("p25", roundSalary(quantiles.p25()));
+            data.put("median", roundSalary(quantiles.median()));
+            data.put("p75", roundSalary(quantiles.p75()));
+            data.put("p90", roundSalary(quantiles.p90()));
+            salaryData.add(data);
+        });
+        if (OfferSalaryDigests.BY_REGION.equals(groupBy)) {
+            salaryData.sort(Comparator.comparingInt(data -> MOROCCAN_REGIONS.indexOf(data.get("name"))));
+        } else {
+            salaryData.sort(Comparator.comparingLong((Map<String, Object> data) -> (Long) data.get("count")).reversed());
+        }
+        return salaryData;
+    }
+
+    private static double roundSalary(double salary) {
+        return Math.round(salary * 100) / 100.0;
+    }
+
+    /**
+     * Nombre d'entreprises, de compétences et de localisations distinctes parmi les offres publiées de from à to
+     * (inclus), éventuellement d'un seul secteur. Ces nombres sont des estimations HyperLogLog : chacune est donnée
+     * avec l'intervalle [low, high] qui contient la valeur exacte dans environ 95 % des cas.
+     * @return Une Map contenant "from", "to", "sector" (si filtré), "offers" (nombre exact d'offres),
+     * "companies", "skills" et "locations" ({"estimate", "low", "high"}), "relativeStandardError" et "confidenceLevel".
+     */
+    public Map<String, Object> getDistinctCounts(LocalDate from, LocalDate to, String sector) {
+        OfferCardinalitySketches.Estimates estimates = cardinalitySketches(from, to).getEstimates(from, to, sector);
+
+        Map<String, Object> distinctData = distinctRange(from, to);
+        if (sector != null) {
+            distinctData.put("sector", sector);
+        }
+        distinctData.put("offers", estimates.offers());
+        distinctData.put("companies", withErrorBounds(estimates.companies()));
+        distinctData.put("skills", withErrorBounds(estimates.skills()));
+        distinctData.put("locations", withErrorBounds(estimates.locations()));
+        return distinctData;
+    }
+
+    /**
+     * Nombre estimé d'entreprises distinctes par secteur parmi les offres publiées de from à to (inclus).
+     * @return Une Map contenant "from", "to", "relativeStandardError", "confidenceLevel" et "sectors", liste de
+     * {"name", "estimate", "low", "high"} par estimation décroissante.
+     */
+    public Map<String, Object> getDistinctCompaniesBySector(LocalDate from, LocalDate to) {
+        List<Map<String, Object>> sectors = cardinalitySketches(from, to).getCompaniesBySector(from, to).entrySet().stream()
+                .map(entry -> {
+                    Map<String, Object> sectorData = new LinkedHashMap<>();
+                    sectorData.put("name", entry.getKey());
+                    sectorData.putAll(withErrorBounds(entry.getValue()));
+                    return sectorData;
+                })
+                .sorted(Comparator.comparingLong((Map<String, Object> s) -> (Long) s.get("estimate")).reversed())
+                .collect(Collectors.toList());
+
+        Map<String, Object> distinctData = distinctRange(from, to);
+        distinctData.put("sectors", sectors);
+        return distinctData;
+    }
+
+    // Sketches de la période : ceux maintenus en mémoire, ou en SQL construits à partir des seules offres de la période
+    private OfferCardinalitySketches cardinalitySketches(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        if (!sqlSource) {
+            return cardinalitySketches;
+        }
+        OfferCardinalitySketches sketches = new OfferCardinalitySketches();
+        for (Object[] facts : offerRepository.findDistinctValueFacts(from, to)) {
+            sketches.add((Integer) facts[0], (LocalDate) facts[1], (String) facts[2], (String) facts[3],
+                    (String) facts[4], (String) facts[5]);
+        }
+        return sketches;
+    }
+
+    private static Map<String, Object> distinctRange(LocalDate from, LocalDate to) {
+        Map<String, Object> distinctData = new LinkedHashMap<>();
+        distinctData.put("from", from.toString());
+        distinctData.put("to", to.toString());
+        distinctData.put("relativeStandardError", OfferCardinalitySketches.RELATIVE_STANDARD_ERROR);
+        distinctData.put("confidenceLevel", 0.95);
+        return distinctData;
+    }
+
+    // Estimation et intervalle à 95 % (deux erreurs-types relatives de part et d'autre)
+    private static Map<String, Object> withErrorBounds(long estimate) {
+        double margin = 2 * OfferCardinalitySketches.RELATIVE_STANDARD_ERROR * estimate;
+        Map<String, Object> bounds = new LinkedHashMap<>();
+        bounds.put("estimate", estimate);
+        bounds.put("low", Math.max(0, (long) Math.floor(estimate - margin)));
+        bounds.put("high", (long) Math.ceil(estimate + margin));
+        return bounds;
+    }
+
+    /**
+     * Tableau croisé des offres : nombre d'offres et salaire moyen par combinaison des dimensions de groupBy
+     * (sector, region, modality, month), parmi les offres dont les valeurs sont dans filters (plusieurs valeurs
+     * par dimension possibles) et publiées de from à to (yyyy-MM, inclus, optionnels).
+     * Calculé sur l'instantané en colonnes des offres (OfferColumnarSnapshot), quelle que soit la source :
+     * il peut avoir jusqu'à spring.app.olap.refresh-ms de retard sur la table offer.
+     * @return Une Map contenant "groupBy", "offers" (offres retenues), "snapshotOffers", "snapshotAt",
+     * "elapsedMicros" et "groups", liste de {<dimension>: valeur..., "count", "salaryCount", "averageSalary"}
+     * par nombre d'offres décroissant.
+     */
+    public Map<String, Object> getCrossTab(List<String> groupBy, Map<String, List<String>> filters,
+                                           YearMonth from, YearMonth to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        List<OfferColumnarSnapshot.Dimension> dimensions = new ArrayList<>();
+        for (String param : groupBy) {
+            if (param.isBlank()) {
+                continue;
+            }
+            OfferColumnarSnapshot.Dimension dimension = OfferColumnarSnapshot.Dimension.fromParam(param.trim());
+            if (dimensions.contains(dimension)) {
+                throw new IllegalArgumentException("Duplicate dimension: " + param);
+            }
+            dimensions.add(dimension);
+        }
+        Map<OfferColumnarSnapshot.Dimension, Set<String>> dimensionFilters = new EnumMap<>(OfferColumnarSnapshot.Dimension.class);
+        filters.forEach((param, values) ->
+                dimensionFilters.put(OfferColumnarSnapshot.Dimension.fromParam(param), new HashSet<>(values)));
+
+        OfferColumnarSnapshot.Result result = columnarSnapshot.query(dimensions, dimensionFilters, from, to);
+
+        List<Map<String, Object>> groups = new ArrayList<>(result.groups().size());
+        long offers = 0;
+        for (OfferColumnarSnapshot.Group group : result.groups()) {
+            Map<String, Object> groupData = new LinkedHashMap<>();
+            for (int d = 0; d < dimensions.size(); d++) {
+                groupData.put(dimensions.get(d).getParam(), group.values().get(d));
+            }
+            groupData.put("count", (long) group.count());
+            groupData.put("salaryCount", (long) group.salaryCount());
+            groupData.put("averageSalary", group.salaryCount() == 0 ? null : roundSalary(group.averageSalary()));
+            groups.add(groupData);
+            offers += group.count();
+        }
+
+        Map<String, Object> crossTab = new LinkedHashMap<>();
+        crossTab.put("groupBy", dimensions.stream().map(OfferColumnarSnapshot.Dimension::getParam).collect(Collectors.toList()));
+        crossTab.put("offers", offers);
+        crossTab.put("snapshotOffers", (long) result.offers());
+        crossTab.put("snapshotAt", Instant.ofEpochMilli(result.builtAt()).toString());
+        crossTab.put("elapsedMicros", result.elapsedMicros());
+        crossTab.put("groups", groups);
+        return crossTab;
+    }
 }
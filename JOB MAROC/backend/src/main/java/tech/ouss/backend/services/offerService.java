@@ -1,40 +1,93 @@
 package tech.ouss.backend.services;
+import DTO.CursorPage;
+import DTO.OfferCard;
+import DTO.OfferSearchResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.transaction.annotation.Transactional;
 import tech.ouss.backend.Repository.*;
 import tech.ouss.backend.models.*;
 import org.springframework.stereotype.Service;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import tech.ouss.backend.search.OfferFilterIndex;
+import tech.ouss.backend.search.OfferSearchIndex;
+import tech.ouss.backend.search.OfferSuggestIndex;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class offerService {
+    public static final int MAX_PAGE_SIZE = 100;
+    // Marks a cursor positioned among the offers without publication date
+    private static final String NO_DATE = "-";
+
     private final offerRepository offerRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final OfferSearchIndex offerSearchIndex;
+    private final OfferFilterIndex offerFilterIndex;
+    private final OfferSuggestIndex offerSuggestIndex;
 
-    public offerService(tech.ouss.backend.Repository.offerRepository offerRepository) {
+    public offerService(tech.ouss.backend.Repository.offerRepository offerRepository, EntityManager entityManager, ObjectMapper objectMapper,
+                        OfferSearchIndex offerSearchIndex, OfferFilterIndex offerFilterIndex,
+                        OfferSuggestIndex offerSuggestIndex) {
         this.offerRepository = offerRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.offerSearchIndex = offerSearchIndex;
+        this.offerFilterIndex = offerFilterIndex;
+        this.offerSuggestIndex = offerSuggestIndex;
     }
 
     public offer getOfferById(int id) {
         return offerRepository.findById(id).orElse(null);
     }
+
+    /** The offer with its contract types, languages and manager, loaded with the "offer.detail" fetch plan. */
+    @Transactional(readOnly = true)
+    public offer getOfferDetails(int id) {
+        return offerRepository.findDetailedById(id).orElse(null);
+    }
     @Transactional
     public offer createOffer(offer newOffer) {
+        StatisticsService.fillDerivedColumns(newOffer);
         return offerRepository.save(newOffer);
     }
 
+    @Transactional
     public offer updateOffer(int id, offer updatedOffer) {
         if (offerRepository.existsById(id)) {
             updatedOffer.setOffer_id(id);
+            StatisticsService.fillDerivedColumns(updatedOffer);
             return offerRepository.save(updatedOffer);
         }
         return null;
     }
 
+    @Transactional
     public void deleteOffer(int id) {
         offerRepository.deleteById(id);
     }
     public List<offer> getAllOffers() {
-        return offerRepository.findAll();
+        return offerRepository.findAllForList();
     }
     public List<offer> getOffersByCompanyName(String companyName) {
         return offerRepository.findByCompanyName(companyName);
@@ -43,5 +96,200 @@ public class offerService {
     public List<offer> getOffersByManagerEmail(String email) {
         return offerRepository.findByManagerEmail(email);
     }
-}
 
+    /** Lightweight counterpart of getAllOffers() for list views, newest first. */
+    public List<OfferCard> getAllOfferCards() {
+        return offerRepository.findAllCards();
+    }
+
+    public List<OfferCard> getOfferCardsByManagerEmail(String email) {
+        return offerRepository.findCardsByManagerEmail(email);
+    }
+
+    /**
+     * Full-text search over title, description, skills and company name, served from the in-memory index.
+     * Only the returned page of offers is loaded from the database.
+     * @param fuzzy also match misspelled terms ("casabanca"), ranked below exact matches.
+     */
+    @Transactional(readOnly = true)
+    public OfferSearchResponse<offer> searchOffers(String query, int limit, boolean fuzzy) {
+        long start = System.nanoTime();
+        OfferSearchIndex.SearchResult result = offerSearchIndex.search(query, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)), fuzzy);
+        List<Integer> ids = result.hits().stream().map(OfferSearchIndex.SearchHit::offerId).toList();
+        List<offer> offers = findAllInOrder(ids);
+        return new OfferSearchResponse<>(query, result.total(), (System.nanoTime() - start) / 1_000_000, offers);
+    }
+
+    /**
+     * Offers matching a filter combination, most recent offer_id first, resolved on the in-memory bitmaps.
+     * @param criteria dimension (see OfferFilterIndex.DIMENSIONS) -> accepted values.
+     * @param query optional full-text query the result is restricted to.
+     * @param fuzzy whether the query also matches misspelled terms.
+     * @param cursor the nextCursor of the previous page (the last offer_id returned), or null.
+     * @throws IllegalArgumentException if the cursor is not an offer id.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<offer> filterOffers(Map<String, List<String>> criteria, String query, boolean fuzzy, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        RoaringBitmap matching = offerFilterIndex.filter(criteria);
+        if (query != null && !query.isBlank()) {
+            matching.and(offerSearchIndex.matchingOffers(query, fuzzy));
+        }
+        if (cursor != null && !cursor.isBlank()) {
+            int lastId;
+            try {
+                lastId = Integer.parseInt(cursor);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+            }
+            matching.remove((long) lastId, 1L << 32);
+        }
+
+        List<Integer> ids = new ArrayList<>(pageSize);
+        IntIterator newestFirst = matching.getReverseIntIterator();
+        while (newestFirst.hasNext() && ids.size() < pageSize) {
+            ids.add(newestFirst.next());
+        }
+        boolean hasMore = newestFirst.hasNext();
+        String nextCursor = hasMore ? String.valueOf(ids.get(ids.size() - 1)) : null;
+        List<offer> items = findAllInOrder(ids);
+        return new CursorPage<>(items, items.size(), nextCursor, hasMore);
+    }
+
+    /**
+     * Facet counts (per modality, status, contract type, sector, region, study level and experience range) of the result set
+     * selected by the given filters and optional full-text query, computed on the in-memory bitmaps.
+     * @return "total" (size of the result set) and "facets" (dimension -> [{"name", "count"}]).
+     */
+    public Map<String, Object> getFacets(Map<String, List<String>> criteria, String query, boolean fuzzy) {
+        RoaringBitmap textMatches = query != null && !query.isBlank() ? offerSearchIndex.matchingOffers(query, fuzzy) : null;
+        RoaringBitmap resultSet = offerFilterIndex.filter(criteria);
+        if (textMatches != null) {
+            resultSet.and(textMatches);
+        }
+        Map<String, Object> facets = new LinkedHashMap<>();
+        facets.put("total", resultSet.getCardinality());
+        facets.put("facets", offerFilterIndex.facetCounts(criteria, textMatches));
+        return facets;
+    }
+
+    /**
+     * Type-ahead suggestions for titles, companies, locations and skills, served from the in-memory prefix tries.
+     * @param field "title", "company", "location" or "skill", or null for all of them.
+     * @throws IllegalArgumentException for an unknown field.
+     */
+    public List<Map<String, Object>> suggest(String prefix, String field, int limit) {
+        OfferSuggestIndex.Field suggestField = field == null || field.isBlank() ? null : OfferSuggestIndex.Field.fromParam(field);
+        return offerSuggestIndex.suggest(prefix, suggestField, Math.max(1, limit));
+    }
+
+    // The IN query does not keep the order of the ids, which here carries the ranking
+    private List<offer> findAllInOrder(List<Integer> ids) {
+        Map<Integer, offer> byId = offerRepository.findAllForListByIds(ids).stream()
+                .collect(Collectors.toMap(offer::getOffer_id, Function.identity()));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Returns one page of the catalogue, newest publication first, using keyset pagination:
+     * each page seeks directly past the (date_publication, offer_id) of the previous page's last row,
+     * so the cost of a page does not depend on how deep the client is.
+     * @param cursor the nextCursor of the previous page, or null for the first page.
+     * @param size the requested page size, clamped to [1, MAX_PAGE_SIZE].
+     * @throws IllegalArgumentException if the cursor cannot be decoded.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<offer> getOffersPage(String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // One extra row tells us whether another page exists
+        PageRequest limit = PageRequest.ofSize(pageSize + 1);
+
+        List<offer> rows = new ArrayList<>(pageSize + 1);
+        if (cursor == null || cursor.isBlank()) {
+            rows.addAll(offerRepository.findFirstPublishedPage(limit));
+            if (rows.size() <= pageSize) {
+                rows.addAll(offerRepository.findUnpublishedPageAfter(Integer.MAX_VALUE, PageRequest.ofSize(pageSize + 1 - rows.size())));
+            }
+        } else {
+            String[] position = decodeCursor(cursor);
+            int lastId = Integer.parseInt(position[1]);
+            if (NO_DATE.equals(position[0])) {
+                rows.addAll(offerRepository.findUnpublishedPageAfter(lastId, limit));
+            } else {
+                rows.addAll(offerRepository.findPublishedPageAfter(LocalDate.parse(position[0]), lastId, limit));
+                if (rows.size() <= pageSize) {
+                    rows.addAll(offerRepository.findUnpublishedPageAfter(Integer.MAX_VALUE, PageRequest.ofSize(pageSize + 1 - rows.size())));
+                }
+            }
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<offer> items = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasMore ? encodeCursor(items.get(items.size() - 1)) : null;
+        return new CursorPage<>(items, items.size(), nextCursor, hasMore);
+    }
+
+    private static String encodeCursor(offer last) {
+        String date = last.getDatePublication() != null ? last.getDatePublication().toString() : NO_DATE;
+        String raw = date + ":" + last.getOffer_id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] position = raw.split(":", 2);
+            if (position.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            Integer.parseInt(position[1]);
+            if (!NO_DATE.equals(position[0])) {
+                LocalDate.parse(position[0]);
+            }
+            return position;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    /**
+     * Writes every offer to the given stream as newline-delimited JSON (one offer per line), reading
+     * the table through a forward-only cursor. Offers are written OFFER_STREAM_FETCH_SIZE at a time:
+     * the cursor joins their manager chain ("offer.list"), and their contract types and languages are
+     * loaded by @BatchSize across the chunk when the first one is serialised. After each chunk the
+     * output is flushed and the persistence context cleared, so heap usage does not grow with the table.
+     * @return the number of offers written.
+     */
+    @Transactional(readOnly = true)
+    public long exportOffers(OutputStream out) throws IOException {
+        int chunkSize = tech.ouss.backend.Repository.offerRepository.OFFER_STREAM_FETCH_SIZE;
+        long written = 0;
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (Stream<offer> offers = offerRepository.streamAll();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null); // Lines are separated explicitly below
+            List<offer> chunk = new ArrayList<>(chunkSize);
+            for (offer o : (Iterable<offer>) offers::iterator) {
+                chunk.add(o);
+                if (chunk.size() == chunkSize) {
+                    written += writeChunk(chunk, writer, generator);
+                }
+            }
+            written += writeChunk(chunk, writer, generator);
+        }
+        return written;
+    }
+
+    private int writeChunk(List<offer> chunk, ObjectWriter writer, JsonGenerator generator) throws IOException {
+        for (offer o : chunk) {
+            writer.writeValue(generator, o);
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+        int size = chunk.size();
+        chunk.clear();
+        entityManager.clear();
+        return size;
+    }
+}
@@ -0,0 +1,137 @@
+package tech.ouss.backend.Repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import tech.ouss.backend.components.TokenVersionRegistry;
+import tech.ouss.backend.components.UserEntityListener;
+import tech.ouss.backend.models.ContractType;
+import tech.ouss.backend.models.manager;
+import tech.ouss.backend.models.offer;
+import tech.ouss.backend.models.offerLanguages;
+import tech.ouss.backend.models.role;
+import tech.ouss.backend.models.userEntity;
+import tech.ouss.backend.search.OfferEntityListener;
+import tech.ouss.backend.search.OfferFilterIndex;
+import tech.ouss.backend.search.OfferSearchIndex;
+import tech.ouss.backend.search.OfferSuggestIndex;
+import tech.ouss.backend.services.offerService;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The list endpoints load and serialise a page of offers in a number of statements that does not depend on
+ * the page size: the "offer.list" fetch plan joins the manager chain and @BatchSize loads the collections.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({offerService.class, OfferSearchIndex.class, OfferFilterIndex.class, OfferSuggestIndex.class,
+        OfferEntityListener.class, UserEntityListener.class, TokenVersionRegistry.class})
+class OfferListStatementCountTest {
+
+    private static final int OFFERS = 120;
+    private static final int MANAGERS = 10;
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private offerRepository offerRepository;
+    @Autowired
+    private offerService offerService;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private List<Integer> offerIds;
+
+    @BeforeEach
+    void createOffers() {
+        role managerRole = new role();
+        managerRole.setRole_name("MANAGER");
+        entityManager.persist(managerRole);
+        ContractType cdi = new ContractType();
+        cdi.setTypeName("CDI");
+        entityManager.persist(cdi);
+        ContractType cdd = new ContractType();
+        cdd.setTypeName("CDD");
+        entityManager.persist(cdd);
+
+        manager[] managers = new manager[MANAGERS];
+        for (int m = 0; m < MANAGERS; m++) {
+            userEntity user = new userEntity();
+            user.setEmail("manager" + m + "@example.com");
+            user.setFirstName("First");
+            user.setLastName("Last");
+            user.setPassword("password");
+            user.setRole(managerRole);
+            user.setDatenais(new Date(0));
+            user.setLieu("Rabat");
+            user.setNum_tel("0600000000");
+            entityManager.persist(user);
+            managers[m] = new manager();
+            managers[m].setUser(user);
+            entityManager.persist(managers[m]);
+        }
+
+        offerIds = IntStream.range(0, OFFERS).mapToObj(i -> {
+            offer offer = new offer();
+            offer.setTitle("Offer " + i);
+            offer.setLocation("Casablanca");
+            offer.setDatePublication(LocalDate.of(2024, 1, 1).plusDays(i));
+            offer.setManagerId(managers[i % MANAGERS]);
+            offer.getContractTypes().add(i % 2 == 0 ? cdi : cdd);
+            offerLanguages french = new offerLanguages();
+            french.setLanguageName("fr");
+            french.setLevel(2);
+            offer.addLanguage(french);
+            return entityManager.persist(offer).getOffer_id();
+        }).toList();
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void findAllForListByIdsLoadsAPageInAFixedNumberOfStatements() throws Exception {
+        long tenOffers = statementsToSerialise(() -> offerRepository.findAllForListByIds(offerIds.subList(0, 10)));
+        long hundredOffers = statementsToSerialise(() -> offerRepository.findAllForListByIds(offerIds.subList(0, 100)));
+
+        // Offers, their contract types, their languages, the notifications of their managers' users
+        assertThat(hundredOffers).isEqualTo(tenOffers).isEqualTo(4);
+    }
+
+    @Test
+    void getOffersPageLoadsAPageInAFixedNumberOfStatements() throws Exception {
+        long tenOffers = statementsToSerialise(() -> offerService.getOffersPage(null, 10));
+        long hundredOffers = statementsToSerialise(() -> offerService.getOffersPage(null, 100));
+
+        assertThat(hundredOffers).isEqualTo(tenOffers).isEqualTo(4);
+    }
+
+    private long statementsToSerialise(PageLoader loader) throws Exception {
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        objectMapper.writeValueAsString(loader.load());
+        return statistics.getPrepareStatementCount();
+    }
+
+    @FunctionalInterface
+    private interface PageLoader {
+        Object load();
+    }
+}
@@ -0,0 +1,170 @@
+package tech.ouss.backend.components;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import tech.ouss.backend.Enums.AcceptanceStatus;
+import tech.ouss.backend.Repository.userRepository;
+import tech.ouss.backend.models.role;
+import tech.ouss.backend.models.userEntity;
+import tech.ouss.backend.services.CustomUserDetailsService;
+
+import java.sql.Date;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Token versions of committed user changes, as seen by TokenVersionRegistry and AuthTokenFilter.
+ * Not run in a test transaction: the registry is only told about a change once it has committed.
+ */
+@DataJpaTest(properties = {
+        "spring.app.jwtSecret=p3v1xpXnLGREZxMc2NJoVW00uKS+IeT5eLSZsBnM8FFxeXT9D3imwVXo3ihWukwbYIivQOXMXoiHwLiHggP1Zg==",
+        "spring.app.jwtExpirationMs=600000",
+        "spring.app.tokenVersionTtlMs=" + TokenVersionRegistryTest.TTL_MS})
+@Import({TokenVersionRegistry.class, UserEntityListener.class, CustomUserDetailsService.class, JwtUtils.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TokenVersionRegistryTest {
+
+    static final long TTL_MS = 200;
+
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private userRepository userRepository;
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    private TransactionTemplate transaction;
+    private role candidate;
+    private role manager;
+    private long userId;
+
+    @BeforeEach
+    void createUser() {
+        transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            candidate = new role();
+            candidate.setRole_name("CANDIDATE");
+            entityManager.persist(candidate);
+            manager = new role();
+            manager.setRole_name("MANAGER");
+            entityManager.persist(manager);
+
+            userEntity user = new userEntity();
+            user.setEmail("user@example.com");
+            user.setFirstName("First");
+            user.setLastName("Last");
+            user.setPassword("password");
+            user.setRole(candidate);
+            user.setDatenais(new Date(0));
+            user.setLieu("Rabat");
+            user.setNum_tel("0600000000");
+            entityManager.persist(user);
+            userId = user.getUserId();
+        });
+    }
+
+    @AfterEach
+    void deleteAll() {
+        transaction.executeWithoutResult(status -> {
+            entityManager.createQuery("DELETE FROM userEntity").executeUpdate();
+            entityManager.createQuery("DELETE FROM role").executeUpdate();
+        });
+        userDetailsService.evict("user@example.com");
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void roleStatusAndPasswordChangesBumpTheVersion() {
+        assertThat(versionAfter(user -> user.setLieu("Casablanca"))).isZero();
+        assertThat(versionAfter(user -> user.setRole(manager))).isEqualTo(1);
+        assertThat(versionAfter(user -> user.setIs_accepted(AcceptanceStatus.REFUSED))).isEqualTo(2);
+        assertThat(versionAfter(user -> user.setPassword("changed"))).isEqualTo(3);
+
+        assertThat(tokenVersionRegistry.isCurrent(userId, 3)).isTrue();
+        assertThat(tokenVersionRegistry.isCurrent(userId, 2)).isFalse();
+    }
+
+    @Test
+    void aMergedRequestBodyCannotLowerTheVersion() {
+        versionAfter(user -> user.setRole(manager));
+        versionAfter(user -> user.setPassword("changed"));
+
+        // A request body carries no token version: merging it must not reset the version to 0
+        userEntity body = transaction.execute(status -> userRepository.findById((int) userId));
+        body.setTokenVersion(0);
+        body.setLieu("Casablanca");
+        transaction.executeWithoutResult(status -> userRepository.save(body));
+        assertThat(storedVersion()).isEqualTo(2);
+
+        body.setTokenVersion(0);
+        body.setRole(candidate);
+        transaction.executeWithoutResult(status -> userRepository.save(body));
+        assertThat(storedVersion()).isEqualTo(3);
+        assertThat(tokenVersionRegistry.isCurrent(userId, 3)).isTrue();
+    }
+
+    @Test
+    void theTokenOfADeletedUserIsRejected() throws Exception {
+        String token = jwtUtils.generateJwtToken(userDetailsService.loadUserByUsername("user@example.com"));
+        assertThat(authenticate(token)).isNotNull();
+
+        transaction.executeWithoutResult(status -> userRepository.deleteById((int) userId));
+
+        assertThat(tokenVersionRegistry.isCurrent(userId, 0)).isFalse();
+        assertThat(authenticate(token)).isNull();
+    }
+
+    @Test
+    void aVersionWrittenElsewhereIsSeenOnceTheEntryExpires() throws Exception {
+        assertThat(tokenVersionRegistry.isCurrent(userId, 0)).isTrue();
+
+        // Written without going through this instance, as another instance or a SQL script would
+        transaction.executeWithoutResult(status -> entityManager
+                .createNativeQuery("UPDATE user_entity SET token_version = 1 WHERE user_id = :userId")
+                .setParameter("userId", userId)
+                .executeUpdate());
+        Thread.sleep(TTL_MS + 50);
+
+        assertThat(tokenVersionRegistry.isCurrent(userId, 0)).isFalse();
+        assertThat(tokenVersionRegistry.isCurrent(userId, 1)).isTrue();
+    }
+
+    private long versionAfter(Consumer<userEntity> change) {
+        transaction.executeWithoutResult(status -> change.accept(entityManager.find(userEntity.class, userId)));
+        return storedVersion();
+    }
+
+    private long storedVersion() {
+        return userRepository.findTokenVersionById(userId);
+    }
+
+    private Authentication authenticate(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/offers");
+        request.addHeader("Authorization", "Bearer " + token);
+        new AuthTokenFilter(jwtUtils, userDetailsService, tokenVersionRegistry)
+                .doFilterInternal(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
@@ -0,0 +1,135 @@
+package tech.ouss.backend.services;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import tech.ouss.backend.Enums.AcceptanceStatus;
+import tech.ouss.backend.Repository.userRepository;
+import tech.ouss.backend.components.JwtUserDetails;
+import tech.ouss.backend.components.TokenVersionRegistry;
+import tech.ouss.backend.components.UserEntityListener;
+import tech.ouss.backend.models.role;
+import tech.ouss.backend.models.userEntity;
+
+import java.sql.Date;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The principal cache of CustomUserDetailsService: cached principals are immutable copies, and every committed
+ * change to a user evicts it (the TTL is far longer than the test, so only the eviction can refresh it).
+ */
+@DataJpaTest(properties = "spring.app.userDetailsCacheTtlMs=3600000")
+@Import({CustomUserDetailsService.class, UserEntityListener.class, TokenVersionRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CustomUserDetailsServiceTest {
+
+    private static final String EMAIL = "user@example.com";
+
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private userRepository userRepository;
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
+    private TransactionTemplate transaction;
+    private long userId;
+
+    @BeforeEach
+    void createUser() {
+        transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            role candidate = new role();
+            candidate.setRole_name("CANDIDATE");
+            entityManager.persist(candidate);
+
+            userEntity user = new userEntity();
+            user.setEmail(EMAIL);
+            user.setFirstName("First");
+            user.setLastName("Last");
+            user.setPassword("password");
+            user.setRole(candidate);
+            user.setIs_accepted(AcceptanceStatus.ACCEPTED);
+            user.setDatenais(new Date(0));
+            user.setLieu("Rabat");
+            user.setNum_tel("0600000000");
+            entityManager.persist(user);
+            userId = user.getUserId();
+        });
+    }
+
+    @AfterEach
+    void deleteAll() {
+        transaction.executeWithoutResult(status -> {
+            entityManager.createQuery("DELETE FROM userEntity").executeUpdate();
+            entityManager.createQuery("DELETE FROM role").executeUpdate();
+        });
+        userDetailsService.evict(EMAIL);
+        userDetailsService.evict("renamed@example.com");
+    }
+
+    @Test
+    void cachesAnImmutablePrincipal() {
+        JwtUserDetails loaded = load(EMAIL);
+
+        assertThat(load(EMAIL.toUpperCase())).isSameAs(loaded);
+        assertThat(loaded.getUserId()).isEqualTo(userId);
+        assertThat(loaded.getRoleName()).isEqualTo("CANDIDATE");
+        assertThat(loaded.getPassword()).isEqualTo("password");
+        assertThat(loaded.isEnabled()).isTrue();
+    }
+
+    @Test
+    void aStatusChangeEvictsTheUser() {
+        load(EMAIL);
+        change(user -> user.setIs_accepted(AcceptanceStatus.REFUSED));
+
+        assertThat(load(EMAIL).getAcceptanceStatus()).isEqualTo(AcceptanceStatus.REFUSED);
+        assertThat(load(EMAIL).isEnabled()).isFalse();
+    }
+
+    @Test
+    void aPasswordChangeEvictsTheUser() {
+        load(EMAIL);
+        change(user -> user.setPassword("changed"));
+
+        assertThat(load(EMAIL).getPassword()).isEqualTo("changed");
+    }
+
+    @Test
+    void anEmailChangeEvictsTheFormerEmail() {
+        load(EMAIL);
+        change(user -> user.setEmail("renamed@example.com"));
+
+        assertThat(load(EMAIL)).isNull();
+        assertThat(load("renamed@example.com").getUserId()).isEqualTo(userId);
+    }
+
+    @Test
+    void aDeletionEvictsTheUser() {
+        load(EMAIL);
+        transaction.executeWithoutResult(status -> userRepository.deleteById((int) userId));
+
+        assertThat(load(EMAIL)).isNull();
+    }
+
+    private JwtUserDetails load(String email) {
+        return (JwtUserDetails) userDetailsService.loadUserByUsername(email);
+    }
+
+    private void change(Consumer<userEntity> change) {
+        transaction.executeWithoutResult(status -> change.accept(entityManager.find(userEntity.class, userId)));
+    }
+}
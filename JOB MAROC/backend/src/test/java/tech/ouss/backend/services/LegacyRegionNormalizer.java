@@ -0,0 +1,261 @@
+package tech.ouss.backend.services;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * The location -> region normalisation as it was before RegionMatcher (chain of String.contains checks,
+ * region names tried in HashMap order), kept verbatim as the oracle of RegionMatcherTest.
+ */
+final class LegacyRegionNormalizer {
+
+    private LegacyRegionNormalizer() {
+    }
+
+    static String removeAccents(String str) {
+        if (str == null) {
+            return null;
+        }
+        // Normalize to NFD (Canonical Decomposition) and remove diacritical marks
+        String normalized = Normalizer.normalize(str, Normalizer.Form.NFD);
+        // Replace all characters that are not ASCII or specific extended characters (like œ, æ)
+        // This regex removes combining diacritical marks (U+0300 to U+036F)
+        String cleaned = normalized.replaceAll("\\p{M}", "");
+        // Handle specific ligatures if necessary (e.g., œ -> oe, æ -> ae)
+        cleaned = cleaned.replace("œ", "oe").replace("Œ", "OE");
+        cleaned = cleaned.replace("æ", "ae").replace("Æ", "AE");
+        return cleaned;
+    }
+
+    static String normalizeRegion(String location) {
+        if (location == null || location.trim().isEmpty()) {
+            return "Non spécifié";
+        }
+
+        // Apply removeAccents and trim() after toLowerCase()
+        String cleanedLocation = removeAccents(location).toLowerCase().trim();
+
+        // -- Traiter les cas génériques ou non pertinents en premier --
+        if (
+                cleanedLocation.contains("international") ||
+                        cleanedLocation.equals("maroc") ||
+                        cleanedLocation.contains("tout le maroc") ||
+                        cleanedLocation.contains("plusieurs villes") ||
+                        cleanedLocation.contains("service client") ||
+                        cleanedLocation.contains("teletravail") ||
+                        cleanedLocation.equals("tele travail") ||
+                        cleanedLocation.equals("remote") ||
+                        cleanedLocation.equals("hybrid") ||
+                        cleanedLocation.equals("on site") ||
+                        cleanedLocation.equals("on-site") ||
+                        cleanedLocation.equals("a distance") ||
+                        cleanedLocation.contains("toute le maroc") ||
+                        cleanedLocation.contains("tous le maroc")
+        ) {
+            return "Non spécifié";
+        }
+
+        Map<String, String> moroccanRegionNamesDisplay = new HashMap<>();
+        moroccanRegionNamesDisplay.put("tanger-tetouan-al hoceima", "Tanger-Tétouan-Al Hoceïma");
+        moroccanRegionNamesDisplay.put("l'oriental", "L'Oriental");
+        moroccanRegionNamesDisplay.put("fes-meknes", "Fès-Meknès");
+        moroccanRegionNamesDisplay.put("rabat-sale-kenitra", "Rabat-Salé-Kénitra");
+        moroccanRegionNamesDisplay.put("beni mellal-khenifra", "Béni Mellal-Khénifra");
+        moroccanRegionNamesDisplay.put("casablanca-settat", "Casablanca-Settat");
+        moroccanRegionNamesDisplay.put("marrakech-safi", "Marrakech-Safi");
+        moroccanRegionNamesDisplay.put("draa-tafilalet", "Drâa-Tafilalet");
+        moroccanRegionNamesDisplay.put("souss-massa", "Souss-Massa");
+        moroccanRegionNamesDisplay.put("guelmim-oued noun", "Guelmim-Oued Noun");
+        moroccanRegionNamesDisplay.put("laayoune-sakia el hamra", "Laâyoune-Sakia El Hamra");
+        moroccanRegionNamesDisplay.put("dakhla-oued ed-dahab", "Dakhla-Oued Ed-Dahab");
+
+        for (Map.Entry<String, String> entry : moroccanRegionNamesDisplay.entrySet()) {
+            if (cleanedLocation.contains(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+
+        // Mapping des villes/zones aux 12 régions du Maroc (mots-clés également en non-accentué)
+        if (cleanedLocation.contains("tanger") ||
+                cleanedLocation.contains("tetouan") ||
+                cleanedLocation.contains("al hoceima") ||
+                cleanedLocation.contains("larache") ||
+                cleanedLocation.contains("chefchaouen") ||
+                cleanedLocation.contains("m'diq") ||
+                cleanedLocation.contains("fnideq") ||
+                cleanedLocation.contains("ouezzane") ||
+                cleanedLocation.contains("martil") ||
+                cleanedLocation.contains("asilah") ||
+                cleanedLocation.contains("el houceima")
+        ) {
+            return "Tanger-Tétouan-Al Hoceïma";
+        }
+        if (cleanedLocation.contains("oujda") ||
+                cleanedLocation.contains("nador") ||
+                cleanedLocation.contains("berkane") ||
+                cleanedLocation.contains("taourirt") ||
+                cleanedLocation.contains("jerada") ||
+                cleanedLocation.contains("figuig") ||
+                cleanedLocation.contains("driouch") ||
+                cleanedLocation.contains("guercif")
+        ) {
+            return "L'Oriental";
+        }
+        if (cleanedLocation.contains("fes") ||
+                cleanedLocation.contains("meknes") ||
+                cleanedLocation.contains("ifrane") ||
+                cleanedLocation.contains("sidi kacem") ||
+                cleanedLocation.contains("taza") ||
+                cleanedLocation.contains("boulemane") ||
+                cleanedLocation.contains("el hajeb") ||
+                cleanedLocation.contains("khemisset") ||
+                cleanedLocation.contains("moulay yaacoub") ||
+                cleanedLocation.contains("sefrou")
+        ) {
+            return "Fès-Meknès";
+        }
+        if (cleanedLocation.contains("rabat") ||
+                cleanedLocation.contains("sale") ||
+                cleanedLocation.contains("kenitra") ||
+                cleanedLocation.contains("skhirat") ||
+                cleanedLocation.contains("temara") ||
+                cleanedLocation.contains("khemisset") ||
+                cleanedLocation.contains("sidi slimane") ||
+                cleanedLocation.contains("sidi yahya el gharb") ||
+                cleanedLocation.contains("ain aouda") ||
+                cleanedLocation.contains("ain atiq") ||
+                cleanedLocation.contains("bouznika") ||
+                cleanedLocation.contains("sala al jadida") ||
+                cleanedLocation.contains("belksiri") ||
+                cleanedLocation.contains("tiflet") ||
+                cleanedLocation.contains("moulay bousselham") ||
+                cleanedLocation.contains("technopolis") ||
+                cleanedLocation.contains("ain el aouda") ||
+                cleanedLocation.contains("sidi allal bahraoui") ||
+                cleanedLocation.contains("skhrirat")
+        ) {
+            return "Rabat-Salé-Kénitra";
+        }
+        if (cleanedLocation.contains("beni mellal") ||
+                cleanedLocation.contains("khenifra") ||
+                cleanedLocation.contains("fquih ben salah") ||
+                cleanedLocation.contains("azilal") ||
+                cleanedLocation.contains("khouribga")
+        ) {
+            return "Béni Mellal-Khénifra";
+        }
+        if (cleanedLocation.contains("casablanca") ||
+                cleanedLocation.contains("mohammedia") ||
+                cleanedLocation.contains("settat") ||
+                cleanedLocation.contains("el jadida") ||
+                cleanedLocation.contains("sidi bennour") ||
+                cleanedLocation.contains("berrechid") ||
+                cleanedLocation.contains("nouaceur") ||
+                cleanedLocation.contains("mediouna") ||
+                cleanedLocation.contains("ben slimane") ||
+                cleanedLocation.contains("had soualem") ||
+                cleanedLocation.contains("bouskoura") ||
+                cleanedLocation.contains("sidi rahhal") ||
+                cleanedLocation.contains("tit mellil") ||
+                cleanedLocation.contains("jorf lasfar") ||
+                cleanedLocation.contains("casabanca") ||
+                cleanedLocation.contains("ain sbaa") ||
+                cleanedLocation.contains("dar bouazza")
+        ) {
+            return "Casablanca-Settat";
+        }
+        if (cleanedLocation.contains("marrakech") ||
+                cleanedLocation.contains("safi") ||
+                cleanedLocation.contains("essaouira") ||
+                cleanedLocation.contains("kelaa sraghna") ||
+                cleanedLocation.contains("chichaoua") ||
+                cleanedLocation.contains("youssoufia") ||
+                cleanedLocation.contains("rehamna") ||
+                cleanedLocation.contains("sebt gzoula") ||
+                cleanedLocation.contains("benguerir") ||
+                cleanedLocation.contains("imintanoute")
+        ) {
+            return "Marrakech-Safi";
+        }
+        if (cleanedLocation.contains("errachidia") ||
+                cleanedLocation.contains("ouarzazate") ||
+                cleanedLocation.contains("zagora") ||
+                cleanedLocation.contains("tinghir") ||
+                cleanedLocation.contains("midelt") ||
+                cleanedLocation.contains("region draa tafilalet") ||
+                cleanedLocation.contains("el jorf")
+        ) {
+            return "Drâa-Tafilalet";
+        }
+        if (cleanedLocation.contains("agadir") ||
+                cleanedLocation.contains("inezgane") ||
+                cleanedLocation.contains("tiznit") ||
+                cleanedLocation.contains("taroudant") ||
+                cleanedLocation.contains("chtouka ait baha") ||
+                cleanedLocation.contains("ait melloul") ||
+                cleanedLocation.contains("sidi ifni") ||
+                cleanedLocation.contains("tata") ||
+                cleanedLocation.contains("taliouine") ||
+                cleanedLocation.contains("inzegane") ||
+                cleanedLocation.contains("dcheira") ||
+                cleanedLocation.contains("oulad teima")
+        ) {
+            return "Souss-Massa";
+        }
+        if (cleanedLocation.contains("guelmim") ||
+                cleanedLocation.contains("tan-tan") ||
+                cleanedLocation.contains("assah") ||
+                cleanedLocation.contains("smara") ||
+                cleanedLocation.contains("boujdour")
+        ) {
+            return "Guelmim-Oued Noun";
+        }
+        if (cleanedLocation.contains("laayoune") ||
+                cleanedLocation.contains("smara") ||
+                cleanedLocation.contains("boujdour") ||
+                cleanedLocation.contains("tarfaya")
+        ) {
+            return "Laâyoune-Sakia El Hamra";
+        }
+        if (cleanedLocation.contains("dakhla") ||
+                cleanedLocation.contains("aousserd")
+        ) {
+            return "Dakhla-Oued Ed-Dahab";
+        }
+
+        return "Non spécifié";
+    }
+
+    static List<String> regionsOf(String rawLocation) {
+        List<String> regions = new ArrayList<>();
+        if (rawLocation == null || rawLocation.trim().isEmpty()) {
+            // If rawLocation is null or empty, count it directly as 'Non spécifié'
+            regions.add("Non spécifié");
+            return regions;
+        }
+        // Split the location string by common delimiters, then clean and normalize each part
+        List<String> locationParts = Arrays.stream(rawLocation.split("[ -]+|,\\s*|\\s*-\\s*|/|\\s*et\\s*")) // Regex for common delimiters
+                .map(String::trim)
+                .filter(part -> !part.isEmpty())
+                .collect(Collectors.toList());
+
+        for (String part : locationParts) {
+            String normalizedRegion = normalizeRegion(part);
+            if (normalizedRegion != null && !normalizedRegion.equals("Non spécifié")) {
+                regions.add(normalizedRegion);
+            }
+        }
+
+        // If no specific region was found for any part, count it as 'Non spécifié'
+        // when the whole location is generic too. This handles "international", "maroc", etc.
+        if (regions.isEmpty() && normalizeRegion(rawLocation).equals("Non spécifié")) {
+            regions.add("Non spécifié");
+        }
+        return regions;
+    }
+}
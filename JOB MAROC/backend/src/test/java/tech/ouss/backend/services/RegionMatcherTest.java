@@ -0,0 +1,116 @@
+package tech.ouss.backend.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Differential test of RegionMatcher against the chain of checks it replaced (LegacyRegionNormalizer),
+ * over the locations of the scraped offers in datascraped/ and over fuzzed locations built from them.
+ */
+class RegionMatcherTest {
+
+    private static final Path DATASET = Path.of("..", "datascraped");
+    private static final int FUZZED_LOCATIONS = 50_000;
+
+    private static PrintStream stderr;
+
+    // Both implementations report unrecognised locations on stderr
+    @BeforeAll
+    static void silenceStderr() {
+        stderr = System.err;
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @AfterAll
+    static void restoreStderr() {
+        System.setErr(stderr);
+    }
+
+    @Test
+    void matchesTheLegacyNormalisationOnTheScrapedLocations() throws IOException {
+        assumeTrue(Files.isDirectory(DATASET), "datascraped/ is not checked out next to the backend");
+        Set<String> locations = scrapedLocations();
+
+        assertThat(locations).hasSizeGreaterThan(100);
+        assertThat(mismatches(locations)).isEmpty();
+    }
+
+    @Test
+    void matchesTheLegacyNormalisationOnFuzzedLocations() throws IOException {
+        List<String> fragments = new ArrayList<>(List.of(
+                "Fès", "FES", "Meknès", "Salé", "Kénitra", "Béni Mellal", "Laâyoune", "Drâa", "Tétouan", "Al Hoceïma",
+                "tele travail", "Télétravail", "Maroc", "tout le Maroc", "International", "remote", "Hybrid", "on-site",
+                "Casablanca-Settat", "rabat-sale-kenitra", "souss-massa", "l'oriental", "M'diq", "Tan-Tan", "el jorf",
+                "œ", "Æ", "’", "ال", "İ", "ß", " - ", ", ", "/", " et ", "  ", "-", " "));
+        if (Files.isDirectory(DATASET)) {
+            fragments.addAll(scrapedLocations());
+        }
+
+        Random random = new Random(20240601);
+        Set<String> locations = new TreeSet<>();
+        while (locations.size() < FUZZED_LOCATIONS) {
+            StringBuilder location = new StringBuilder();
+            for (int parts = 1 + random.nextInt(4); parts > 0; parts--) {
+                String fragment = fragments.get(random.nextInt(fragments.size()));
+                int from = random.nextInt(fragment.length());
+                int to = from + 1 + random.nextInt(fragment.length() - from);
+                String piece = random.nextBoolean() ? fragment : fragment.substring(from, to);
+                location.append(random.nextInt(4) == 0 ? piece.toUpperCase() : piece);
+            }
+            locations.add(location.toString());
+        }
+
+        assertThat(mismatches(locations)).isEmpty();
+    }
+
+    private static List<String> mismatches(Set<String> locations) {
+        List<String> mismatches = new ArrayList<>();
+        for (String location : locations) {
+            String expected = LegacyRegionNormalizer.normalizeRegion(location);
+            String actual = RegionMatcher.normalize(location);
+            if (!expected.equals(actual)) {
+                mismatches.add("normalize(\"" + location + "\"): " + actual + " instead of " + expected);
+            }
+            List<String> expectedRegions = LegacyRegionNormalizer.regionsOf(location);
+            List<String> actualRegions = StatisticsService.regionsOf(location);
+            if (!expectedRegions.equals(actualRegions)) {
+                mismatches.add("regionsOf(\"" + location + "\"): " + actualRegions + " instead of " + expectedRegions);
+            }
+        }
+        return mismatches;
+    }
+
+    private static Set<String> scrapedLocations() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Set<String> locations = new TreeSet<>();
+        try (Stream<Path> files = Files.list(DATASET)) {
+            for (Path file : files.filter(path -> path.toString().endsWith(".json")).toList()) {
+                for (JsonNode offer : objectMapper.readTree(file.toFile())) {
+                    JsonNode location = offer.get("location");
+                    if (location != null && location.isTextual()) {
+                        locations.add(location.asText());
+                    }
+                }
+            }
+        }
+        return locations;
+    }
+}